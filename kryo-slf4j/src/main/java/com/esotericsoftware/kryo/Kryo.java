@@ -23,13 +23,16 @@ import static com.esotericsoftware.kryo.util.Util.className;
 import static com.esotericsoftware.kryo.util.Util.getWrapperClass;
 import static com.esotericsoftware.kryo.util.Util.string;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -55,7 +58,10 @@ import com.esotericsoftware.kryo.factories.ReflectionSerializerFactory;
 import com.esotericsoftware.kryo.factories.SerializerFactory;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.StreamValue;
+import com.esotericsoftware.kryo.serializers.ClosureSerializer;
 import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.CopyPlan;
 import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.BooleanArraySerializer;
 import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ByteArraySerializer;
 import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.CharArraySerializer;
@@ -69,6 +75,8 @@ import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.StringArray
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.BigDecimalSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.BigIntegerSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.BooleanSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.BitSetSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.ByteBufferSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.ByteSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.CalendarSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.CharSerializer;
@@ -98,7 +106,10 @@ import com.esotericsoftware.kryo.serializers.DefaultSerializers.TreeMapSerialize
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.TreeSetSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.VoidSerializer;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.JdkCollectionSerializers;
 import com.esotericsoftware.kryo.serializers.MapSerializer;
+import com.esotericsoftware.kryo.serializers.StreamValueSerializer;
+import com.esotericsoftware.kryo.serializers.TimeSerializers;
 import com.esotericsoftware.kryo.util.DefaultClassResolver;
 import com.esotericsoftware.kryo.util.DefaultStreamFactory;
 import com.esotericsoftware.kryo.util.IdentityMap;
@@ -136,7 +147,7 @@ public class Kryo {
 
 	private ReferenceResolver referenceResolver;
 	private final IntArray readReferenceIds = new IntArray(0);
-	private boolean references, copyReferences = true;
+	private boolean references, copyReferences = true, copyPlansEnabled;
 	private Object readObject;
 
 	private int copyDepth;
@@ -144,6 +155,8 @@ public class Kryo {
 	private IdentityMap originalToCopy;
 	private Object needsCopyReference;
 	private Generics genericsScope;
+	private Serializer genericsSerializer;
+	private Class[] serializerGenerics;
 	/** Tells if ASM-based backend should be used by new serializer instances created using this Kryo instance. */
 	private boolean asmEnabled = false;
 
@@ -207,6 +220,7 @@ public class Kryo {
 		addDefaultSerializer(Collections.singletonList(null).getClass(), CollectionsSingletonListSerializer.class);
 		addDefaultSerializer(Collections.singletonMap(null, null).getClass(), CollectionsSingletonMapSerializer.class);
 		addDefaultSerializer(Collections.singleton(null).getClass(), CollectionsSingletonSetSerializer.class);
+		JdkCollectionSerializers.addDefaultSerializers(this);
 		addDefaultSerializer(TreeSet.class, TreeSetSerializer.class);
 		addDefaultSerializer(Collection.class, CollectionSerializer.class);
 		addDefaultSerializer(TreeMap.class, TreeMapSerializer.class);
@@ -214,6 +228,11 @@ public class Kryo {
 		addDefaultSerializer(TimeZone.class, TimeZoneSerializer.class);
 		addDefaultSerializer(Calendar.class, CalendarSerializer.class);
 		addDefaultSerializer(Locale.class, LocaleSerializer.class);
+		addDefaultSerializer(ByteBuffer.class, ByteBufferSerializer.class);
+		addDefaultSerializer(BitSet.class, BitSetSerializer.class);
+		// Only referenced when present, so Kryo still runs on Java versions without java.time.
+		if (Util.isClassAvailable("java.time.Instant")) TimeSerializers.addDefaultSerializers(this);
+		addDefaultSerializer(StreamValue.class, StreamValueSerializer.class);
 		lowPriorityDefaultSerializerCount = defaultSerializers.size();
 
 		// Primitives and string. Primitive wrappers automatically use the same registration as primitives.
@@ -482,7 +501,7 @@ public class Kryo {
 			} else if (EnumSet.class.isAssignableFrom(type)) {
 				registration = classResolver.getRegistration(EnumSet.class);
 			} else if (isClousre(type)) {
-				registration = classResolver.getRegistration(Closure.class);
+				registration = classResolver.getRegistration(ClosureSerializer.Closure.class);
 			}
 			if (registration == null) {
 				if (registrationRequired) {
@@ -578,6 +597,7 @@ public class Kryo {
 			} else if (!serializer.getAcceptsNull()) {
 				if (object == null) {
 					LOGGER.debug("{} Write : null", methodName);
+					serializer.setGenerics(this, null);
 					output.writeByte(NULL);
 					return;
 				}
@@ -607,6 +627,7 @@ public class Kryo {
 			} else if (!serializer.getAcceptsNull()) {
 				if (object == null) {
 					LOGGER.debug("{} Write : null", methodName);
+					serializer.setGenerics(this, null);
 					output.writeByte(NULL);
 					return;
 				}
@@ -619,6 +640,66 @@ public class Kryo {
 		}
 	}
 
+	/** Writes a batch of objects or nulls using the registered serializer for the specified type, which is looked up once for the
+	 * batch. The batch is a single object graph: if {@link #setAutoReset(boolean) auto reset} is true, {@link #reset()} is called
+	 * once after the batch rather than after each object, so references and unregistered class names span the batch. Each
+	 * object must be of exactly the specified type, as for {@link #writeObjectOrNull(Output, Object, Class)}. The batch is
+	 * written as the number of objects followed by each object as {@link #writeObjectOrNull(Output, Object, Serializer)} writes
+	 * it.
+	 * @param objects May contain nulls.
+	 * @see #readObjects(Input, Class) */
+	public void writeObjects (Output output, Class type, Object[] objects) {
+		if (output == null) throw new IllegalArgumentException("output cannot be null.");
+		if (type == null) throw new IllegalArgumentException("type cannot be null.");
+		if (objects == null) throw new IllegalArgumentException("objects cannot be null.");
+		beginObject();
+		try {
+			Serializer serializer = getRegistration(type).getSerializer();
+			output.writeVarInt(objects.length, true);
+			for (int i = 0, n = objects.length; i < n; i++)
+				writeBatchObject(output, objects[i], serializer);
+		} finally {
+			if (--depth == 0 && autoReset) reset();
+		}
+	}
+
+	/** Writes a batch of objects or nulls using the registered serializer for the specified type.
+	 * @param objects May contain nulls.
+	 * @see #writeObjects(Output, Class, Object[])
+	 * @see #readObjects(Input, Class, Collection) */
+	public void writeObjects (Output output, Class type, Collection objects) {
+		if (output == null) throw new IllegalArgumentException("output cannot be null.");
+		if (type == null) throw new IllegalArgumentException("type cannot be null.");
+		if (objects == null) throw new IllegalArgumentException("objects cannot be null.");
+		beginObject();
+		try {
+			Serializer serializer = getRegistration(type).getSerializer();
+			int count = objects.size();
+			output.writeVarInt(count, true);
+			for (Object object : objects) {
+				if (count-- == 0) throw new ConcurrentModificationException("Collection size changed while writing.");
+				writeBatchObject(output, object, serializer);
+			}
+			if (count != 0) throw new ConcurrentModificationException("Collection size changed while writing.");
+		} finally {
+			if (--depth == 0 && autoReset) reset();
+		}
+	}
+
+	/** Writes what {@link #writeObjectOrNull(Output, Object, Serializer)} writes, without the depth and reset bookkeeping. */
+	private void writeBatchObject (Output output, Object object, Serializer serializer) {
+		if (references) {
+			if (writeReferenceOrNull(output, object, true)) return;
+		} else if (!serializer.getAcceptsNull()) {
+			if (object == null) {
+				output.writeByte(NULL);
+				return;
+			}
+			output.writeByte(NOT_NULL);
+		}
+		serializer.write(this, output, object);
+	}
+
 	/** Writes the class and object or null using the registered serializer.
 	 * @param object May be null. */
 	public void writeClassAndObject (Output output, Object object) {
@@ -698,7 +779,10 @@ public class Kryo {
 			T object;
 			if (references) {
 				int stackSize = readReferenceOrNull(input, type, false);
-				if (stackSize == REF) return (T)readObject;
+				if (stackSize == REF) {
+					getRegistration(type).getSerializer().setGenerics(this, null);
+					return (T)readObject;
+				}
 				object = (T)getRegistration(type).getSerializer().read(this, input, type);
 				if (stackSize == readReferenceIds.size) reference(object);
 			} else
@@ -722,7 +806,10 @@ public class Kryo {
 			T object;
 			if (references) {
 				int stackSize = readReferenceOrNull(input, type, false);
-				if (stackSize == REF) return (T)readObject;
+				if (stackSize == REF) {
+					serializer.setGenerics(this, null);
+					return (T)readObject;
+				}
 				object = (T)serializer.read(this, input, type);
 				if (stackSize == readReferenceIds.size) reference(object);
 			} else
@@ -746,13 +833,17 @@ public class Kryo {
 			T object;
 			if (references) {
 				int stackSize = readReferenceOrNull(input, type, true);
-				if (stackSize == REF) return (T)readObject;
+				if (stackSize == REF) {
+					getRegistration(type).getSerializer().setGenerics(this, null);
+					return (T)readObject;
+				}
 				object = (T)getRegistration(type).getSerializer().read(this, input, type);
 				if (stackSize == readReferenceIds.size) reference(object);
 			} else {
 				Serializer serializer = getRegistration(type).getSerializer();
 				if (!serializer.getAcceptsNull() && input.readByte() == NULL) {
 					LOGGER.debug("{} Read : null", methodName);
+					serializer.setGenerics(this, null);
 					return null;
 				}
 				object = (T)serializer.read(this, input, type);
@@ -777,12 +868,16 @@ public class Kryo {
 			T object;
 			if (references) {
 				int stackSize = readReferenceOrNull(input, type, true);
-				if (stackSize == REF) return (T)readObject;
+				if (stackSize == REF) {
+					serializer.setGenerics(this, null);
+					return (T)readObject;
+				}
 				object = (T)serializer.read(this, input, type);
 				if (stackSize == readReferenceIds.size) reference(object);
 			} else {
 				if (!serializer.getAcceptsNull() && input.readByte() == NULL) {
 					LOGGER.debug("{} Read : null", methodName);
+					serializer.setGenerics(this, null);
 					return null;
 				}
 				object = (T)serializer.read(this, input, type);
@@ -794,6 +889,57 @@ public class Kryo {
 		}
 	}
 
+	/** Reads a batch of objects or nulls written by {@link #writeObjects(Output, Class, Object[])}.
+	 * @return An array of the specified type, or of its wrapper type for primitives. */
+	public <T> T[] readObjects (Input input, Class<T> type) {
+		if (input == null) throw new IllegalArgumentException("input cannot be null.");
+		if (type == null) throw new IllegalArgumentException("type cannot be null.");
+		beginObject();
+		try {
+			Serializer serializer = getRegistration(type).getSerializer();
+			int length = input.readVarInt(true);
+			T[] objects = (T[])Array.newInstance(type.isPrimitive() ? getWrapperClass(type) : type, length);
+			for (int i = 0; i < length; i++)
+				objects[i] = (T)readBatchObject(input, type, serializer);
+			return objects;
+		} finally {
+			if (--depth == 0 && autoReset) reset();
+		}
+	}
+
+	/** Reads a batch of objects or nulls written by {@link #writeObjects(Output, Class, Collection)} and adds them to the
+	 * collection.
+	 * @return The number of objects read. */
+	public <T> int readObjects (Input input, Class<T> type, Collection<? super T> objects) {
+		if (input == null) throw new IllegalArgumentException("input cannot be null.");
+		if (type == null) throw new IllegalArgumentException("type cannot be null.");
+		if (objects == null) throw new IllegalArgumentException("objects cannot be null.");
+		beginObject();
+		try {
+			Serializer serializer = getRegistration(type).getSerializer();
+			int length = input.readVarInt(true);
+			if (objects instanceof ArrayList) ((ArrayList)objects).ensureCapacity(objects.size() + length);
+			for (int i = 0; i < length; i++)
+				objects.add((T)readBatchObject(input, type, serializer));
+			return length;
+		} finally {
+			if (--depth == 0 && autoReset) reset();
+		}
+	}
+
+	/** Reads what {@link #readObjectOrNull(Input, Class, Serializer)} reads, without the depth and reset bookkeeping. */
+	private Object readBatchObject (Input input, Class type, Serializer serializer) {
+		if (references) {
+			int stackSize = readReferenceOrNull(input, type, true);
+			if (stackSize == REF) return readObject;
+			Object object = serializer.read(this, input, type);
+			if (stackSize == readReferenceIds.size) reference(object);
+			return object;
+		}
+		if (!serializer.getAcceptsNull() && input.readByte() == NULL) return null;
+		return serializer.read(this, input, type);
+	}
+
 	/** Reads the class and object or null using the registered serializer.
 	 * @return May be null. */
 	public Object readClassAndObject (Input input) {
@@ -886,6 +1032,8 @@ public class Kryo {
 	public void reset () {
 		depth = 0;
 		if (graphContext != null) graphContext.clear();
+		genericsSerializer = null;
+		serializerGenerics = null;
 		classResolver.reset();
 		if (references) {
 			referenceResolver.reset();
@@ -905,6 +1053,7 @@ public class Kryo {
 		
 		if (object == null) return null;
 		if (copyShallow) return object;
+		if (copyPlansEnabled && !(object instanceof KryoCopyable)) return copyWithPlan(object);
 		copyDepth++;
 		try {
 			if (originalToCopy == null) originalToCopy = new IdentityMap();
@@ -925,6 +1074,34 @@ public class Kryo {
 		}
 	}
 
+	private <T> T copyWithPlan (T object) {
+		final String methodName = "copyWithPlan : ";
+
+		Registration registration = getRegistration(object.getClass());
+		CopyPlan plan = CopyPlan.getPlan(this, registration);
+		// Immutable objects are shared, so they never need to be tracked.
+		if (plan.isImmutable() || registration.getSerializer().isImmutable()) return object;
+		copyDepth++;
+		try {
+			if (copyReferences) {
+				if (originalToCopy == null) originalToCopy = new IdentityMap();
+				Object existingCopy = originalToCopy.get(object);
+				if (existingCopy != null) return (T)existingCopy;
+				if (!plan.isLeaf()) needsCopyReference = object;
+			}
+			Object copy = plan.copy(this, object);
+			if (copyReferences) {
+				if (plan.isLeaf())
+					originalToCopy.put(object, copy);
+				else if (needsCopyReference != null) reference(copy);
+			}
+			if (LOGGER.isDebugEnabled()) LOGGER.debug("{} Copy : {}", methodName, string(copy));
+			return (T)copy;
+		} finally {
+			if (--copyDepth == 0) reset();
+		}
+	}
+
 	/** Returns a deep copy of the object using the specified serializer. Serializers for the classes involved must support
 	 * {@link Serializer#copy(Kryo, Object)}.
 	 * @param object May be null. */
@@ -1080,6 +1257,19 @@ public class Kryo {
 		this.copyReferences = copyReferences;
 	}
 
+	/** If true, {@link #copy(Object)} uses a {@link CopyPlan} compiled once per class and cached on the class' registration.
+	 * Immutable objects are then shared without being tracked, primitive arrays and objects with only primitive fields are copied
+	 * in bulk, and objects using {@link FieldSerializer} share immutable field values without a nested copy. Serializers that
+	 * customize {@link Serializer#copy(Kryo, Object)} are still used. Default is false. */
+	public void setCopyPlansEnabled (boolean copyPlansEnabled) {
+		this.copyPlansEnabled = copyPlansEnabled;
+		LOGGER.trace("setCopyPlansEnabled : Copy plans: {}", copyPlansEnabled);
+	}
+
+	public boolean getCopyPlansEnabled () {
+		return copyPlansEnabled;
+	}
+
 	/** Sets the reference resolver and enables references. */
 	public void setReferenceResolver (ReferenceResolver referenceResolver) {
 		if (referenceResolver == null) throw new IllegalArgumentException("referenceResolver cannot be null.");
@@ -1156,6 +1346,10 @@ public class Kryo {
 		this.autoReset = autoReset;
 	}
 
+	public boolean getAutoReset () {
+		return autoReset;
+	}
+
 	/** Sets the maxiumum depth of an object graph. This can be used to prevent malicious data from causing a stack overflow.
 	 * Default is {@link Integer#MAX_VALUE}. */
 	public void setMaxDepth (int maxDepth) {
@@ -1213,6 +1407,38 @@ public class Kryo {
 		return genericsScope;
 	}
 
+	/** Stores the generic types for the next call to read or write on the specified serializer. Serializers may call this from
+	 * {@link Serializer#setGenerics(Kryo, Class[])} to keep the generic types in the Kryo instance rather than in a field. Only one
+	 * set of generic types is stored at a time, so the serializer must take them with {@link #removeGenerics(Serializer)} at the
+	 * start of write or read, before any other object is written or read. Kryo clears them itself when it writes or reads a null
+	 * or a reference instead of calling the serializer.
+	 * @param generics May be null to clear the generic types stored for the serializer.
+	 * @throws KryoException if generic types stored for another call were not removed. */
+	public void setGenerics (Serializer serializer, Class[] generics) {
+		if (generics == null) {
+			if (genericsSerializer == serializer) {
+				genericsSerializer = null;
+				serializerGenerics = null;
+			}
+			return;
+		}
+		if (genericsSerializer != null) {
+			throw new KryoException("Generic types stored for serializer were not removed: " + genericsSerializer.getClass().getName());
+		}
+		genericsSerializer = serializer;
+		serializerGenerics = generics;
+	}
+
+	/** Removes and returns the generic types stored for the specified serializer by {@link #setGenerics(Serializer, Class[])}.
+	 * @return May be null. */
+	public Class[] removeGenerics (Serializer serializer) {
+		if (genericsSerializer != serializer) return null;
+		Class[] generics = serializerGenerics;
+		genericsSerializer = null;
+		serializerGenerics = null;
+		return generics;
+	}
+
 	public StreamFactory getStreamFactory () {
 		return streamFactory;
 	}
@@ -1309,7 +1535,4 @@ public class Kryo {
 			return fallbackStrategy.newInstantiatorOf(type);
 		}
 	}
-
-	private static class Closure {
-	}
 }
@@ -25,6 +25,8 @@ import org.objenesis.instantiator.ObjectInstantiator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.esotericsoftware.kryo.serializers.CopyPlan;
+
 /** Describes the {@link Serializer} and class ID to use for a class.
  * @author Nathan Sweet <misc@n4te.com> */
 public class Registration {
@@ -34,6 +36,7 @@ public class Registration {
 	private final int id;
 	private Serializer serializer;
 	private ObjectInstantiator instantiator;
+	private CopyPlan copyPlan;
 
 	public Registration (Class type, Serializer serializer, int id) {
 		if (type == null) throw new IllegalArgumentException("type cannot be null.");
@@ -60,6 +63,7 @@ public class Registration {
 	public void setSerializer (Serializer serializer) {
 		if (serializer == null) throw new IllegalArgumentException("serializer cannot be null.");
 		this.serializer = serializer;
+		copyPlan = null;
 		LOGGER.trace("setSerializer : Update registered serializer: {} ({})", type.getName(), serializer.getClass().getName());
 	}
 
@@ -74,6 +78,18 @@ public class Registration {
 		this.instantiator = instantiator;
 	}
 
+	/** @return May be null if not yet compiled. */
+	public CopyPlan getCopyPlan () {
+		return copyPlan;
+	}
+
+	/** Sets the plan used by {@link Kryo#copy(Object)} when {@link Kryo#setCopyPlansEnabled(boolean) copy plans} are enabled. The
+	 * plan is cleared when the serializer is changed.
+	 * @param copyPlan May be null. */
+	public void setCopyPlan (CopyPlan copyPlan) {
+		this.copyPlan = copyPlan;
+	}
+
 	public String toString () {
 		return "[" + id + ", " + className(type) + "]";
 	}
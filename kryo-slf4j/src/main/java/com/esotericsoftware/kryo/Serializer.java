@@ -86,7 +86,10 @@ public abstract class Serializer<T> {
 	/** Sets the generic types of the field or method this serializer will be used for on the next call to read or write. Subsequent
 	 * calls to read and write must not use this generic type information. The default implementation does nothing. Subclasses may
 	 * use the information provided to this method for more efficient serialization, eg to use the same type for all items in a
-	 * list.
+	 * list. Implementations may store the generic types with {@link Kryo#setGenerics(Serializer, Class[])} rather than in a
+	 * field. This alone doesn't make a serializer safe to use with multiple Kryo instances, eg
+	 * {@link com.esotericsoftware.kryo.serializers.FieldSerializer} rebuilds its cached fields for the generic types and is bound
+	 * to the Kryo instance it was created with.
 	 * @param generics Some (but never all) elements may be null if there is no generic type information at that index. */
 	public void setGenerics (Kryo kryo, Class[] generics) {
 	}
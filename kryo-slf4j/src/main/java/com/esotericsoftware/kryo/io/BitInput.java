@@ -0,0 +1,74 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** Reads values of 1 to 64 bits written by {@link BitOutput} from an {@link Input}. Bytes are read from the input only as they are
+ * needed, so after the last value the input is positioned just after the padded byte written by {@link BitOutput#flush()}. */
+public class BitInput {
+	private Input input;
+	private long bits;
+	private int bitCount;
+
+	/** Creates an uninitialized BitInput. {@link #setInput(Input)} must be called before it is used. */
+	public BitInput () {
+	}
+
+	public BitInput (Input input) {
+		this.input = input;
+	}
+
+	/** Sets the input and discards any bits remaining from the previous byte. */
+	public void setInput (Input input) {
+		this.input = input;
+		bits = 0;
+		bitCount = 0;
+	}
+
+	public Input getInput () {
+		return input;
+	}
+
+	public boolean readBit () throws KryoException {
+		return readBits(1) != 0;
+	}
+
+	/** @param count The number of bits to read, 0 to 64.
+	 * @return The bits in the low bits of the value, the other bits are zero. */
+	public long readBits (int count) throws KryoException {
+		if (count > 56) {
+			if (count > 64) throw new IllegalArgumentException("count must be <= 64: " + count);
+			long high = readBits(count - 32);
+			return (high << 32) | readBits(32);
+		}
+		while (bitCount < count) {
+			bits = (bits << 8) | (input.readByte() & 0xFF);
+			bitCount += 8;
+		}
+		bitCount -= count;
+		return (bits >>> bitCount) & ((1L << count) - 1);
+	}
+
+	/** Discards the remaining bits of the current byte, which is the padding written by {@link BitOutput#flush()}. */
+	public void align () {
+		bits = 0;
+		bitCount = 0;
+	}
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** Writes values of 1 to 64 bits to an {@link Output}, most significant bit first. Whole bytes are written as soon as they are
+ * complete, {@link #flush()} must be called after the last value to write the remaining bits padded with zeros to a byte.
+ * @see BitInput */
+public class BitOutput {
+	private Output output;
+	private long bits;
+	private int bitCount;
+
+	/** Creates an uninitialized BitOutput. {@link #setOutput(Output)} must be called before it is used. */
+	public BitOutput () {
+	}
+
+	public BitOutput (Output output) {
+		this.output = output;
+	}
+
+	/** Sets the output and discards any bits that have not been flushed. */
+	public void setOutput (Output output) {
+		this.output = output;
+		bits = 0;
+		bitCount = 0;
+	}
+
+	public Output getOutput () {
+		return output;
+	}
+
+	public void writeBit (boolean value) throws KryoException {
+		writeBits(value ? 1 : 0, 1);
+	}
+
+	/** Writes the low bits of the value.
+	 * @param count The number of bits to write, 0 to 64. */
+	public void writeBits (long value, int count) throws KryoException {
+		if (count > 56) {
+			if (count > 64) throw new IllegalArgumentException("count must be <= 64: " + count);
+			writeBits(value >>> 32, count - 32);
+			count = 32;
+		}
+		// At most 7 bits are pending, so up to 56 more fit in the long.
+		bits = (bits << count) | (value & ((1L << count) - 1));
+		bitCount += count;
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			output.writeByte((byte)(bits >>> bitCount));
+		}
+	}
+
+	/** Writes the remaining bits, if any, padded with zeros to a byte. */
+	public void flush () throws KryoException {
+		if (bitCount == 0) return;
+		output.writeByte((byte)(bits << (8 - bitCount)));
+		bits = 0;
+		bitCount = 0;
+	}
+}
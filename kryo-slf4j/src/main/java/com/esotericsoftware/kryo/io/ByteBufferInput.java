@@ -185,7 +185,7 @@ public class ByteBufferInput extends Input {
 	/** @param required Must be > 0. The buffer is filled until it has at least this many bytes.
 	 * @return the number of bytes remaining.
 	 * @throws KryoException if EOS is reached before required bytes are read (buffer underflow). */
-	final protected int require (int required) throws KryoException {
+	protected int require (int required) throws KryoException {
 		int remaining = limit - position;
 		if (remaining >= required) return remaining;
 		if (required > capacity) throw new KryoException("Buffer too small: capacity: " + capacity + ", required: " + required);
@@ -224,7 +224,7 @@ public class ByteBufferInput extends Input {
 
 	/** @param optional Try to fill the buffer with this many bytes.
 	 * @return the number of bytes remaining, but not more than optional, or -1 if the EOS was reached and the buffer is empty. */
-	private int optional (int optional) throws KryoException {
+	protected int optional (int optional) throws KryoException {
 		int remaining = limit - position;
 		if (remaining >= optional) return optional;
 		optional = Math.min(optional, capacity);
@@ -361,6 +361,41 @@ public class ByteBufferInput extends Input {
 		}
 	}
 
+	public void readBytes (ByteBuffer bytes) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		ByteBuffer source = niobuffer.duplicate();
+		int count = bytes.remaining();
+		int copyCount = Math.min(limit - position, count);
+		while (true) {
+			source.limit(position + copyCount).position(position);
+			bytes.put(source);
+			position += copyCount;
+			count -= copyCount;
+			if (count == 0) break;
+			copyCount = Math.min(count, capacity);
+			require(copyCount);
+			source = niobuffer.duplicate();
+		}
+		niobuffer.position(position);
+	}
+
+	/** Reads the specified number of bytes as a read-only ByteBuffer. When no InputStream is set, the ByteBuffer is a view of the
+	 * buffer and no bytes are copied, even for direct buffers. It is only valid as long as the buffer's bytes are not changed. */
+	public ByteBuffer readByteBuffer (int length) throws KryoException {
+		if (inputStream != null) {
+			ByteBuffer copy = ByteBuffer.allocate(length);
+			readBytes(copy);
+			copy.flip();
+			return copy.asReadOnlyBuffer();
+		}
+		require(length);
+		ByteBuffer view = niobuffer.duplicate();
+		view.limit(position + length).position(position);
+		position += length;
+		niobuffer.position(position);
+		return view.slice().asReadOnlyBuffer();
+	}
+
 	public int readInt () throws KryoException {
 		require(4);
 		position += 4;
@@ -621,12 +656,11 @@ public class ByteBufferInput extends Input {
 			end++;
 			b = niobuffer.get();
 		} while ((b & 0x80) == 0);
-		niobuffer.put(end - 1, (byte)(niobuffer.get(end - 1) & 0x7F)); // Mask end of ascii bit.
 		byte[] tmp = new byte[end - start];
 		niobuffer.position(start);
 		niobuffer.get(tmp);
+		tmp[tmp.length - 1] &= 0x7F; // Mask end of ascii bit in the copy, the buffer may be read-only.
 		String value = new String(tmp, 0, 0, end - start);
-		niobuffer.put(end - 1, (byte)(niobuffer.get(end - 1) | 0x80));
 		position = end;
 		niobuffer.position(position);
 		return value;
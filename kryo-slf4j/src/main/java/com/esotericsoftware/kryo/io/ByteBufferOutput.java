@@ -302,6 +302,23 @@ public class ByteBufferOutput extends Output {
 		}
 	}
 
+	public void writeBytes (ByteBuffer bytes) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		ByteBuffer source = bytes.duplicate();
+		int count = source.remaining();
+		int copyCount = Math.min(capacity - position, count);
+		while (true) {
+			source.limit(source.position() + copyCount);
+			niobuffer.put(source);
+			position += copyCount;
+			count -= copyCount;
+			if (count == 0) return;
+			source.limit(bytes.limit());
+			copyCount = Math.min(capacity, count);
+			require(copyCount);
+		}
+	}
+
 	// int
 
 	/** Writes a 4 byte int. */
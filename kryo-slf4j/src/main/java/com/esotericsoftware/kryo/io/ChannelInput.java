@@ -0,0 +1,107 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** A {@link ByteBufferInput} that fills its direct buffer from a {@link ReadableByteChannel}. Bytes are read by the channel
+ * straight into the buffer, without going through a temporary byte array.
+ * <p>
+ * The channel must be in blocking mode. */
+public class ChannelInput extends ByteBufferInput {
+	protected ReadableByteChannel channel;
+
+	/** Creates an uninitialized Input. A channel must be set before the Input is used.
+	 * @see #setChannel(ReadableByteChannel) */
+	public ChannelInput () {
+		this(4096);
+	}
+
+	/** Creates an uninitialized Input. A channel must be set before the Input is used.
+	 * @param bufferSize The size of the direct buffer. */
+	public ChannelInput (int bufferSize) {
+		super(bufferSize);
+	}
+
+	/** Creates a new Input for reading from a channel. A buffer size of 4096 is used. */
+	public ChannelInput (ReadableByteChannel channel) {
+		this(channel, 4096);
+	}
+
+	/** Creates a new Input for reading from a channel.
+	 * @param bufferSize The size of the direct buffer. */
+	public ChannelInput (ReadableByteChannel channel, int bufferSize) {
+		this(bufferSize);
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		this.channel = channel;
+	}
+
+	public ReadableByteChannel getChannel () {
+		return channel;
+	}
+
+	/** Sets a new channel. The position and total are reset, discarding any buffered bytes.
+	 * @param channel May be null. */
+	public void setChannel (ReadableByteChannel channel) {
+		this.channel = channel;
+		limit = 0;
+		rewind();
+	}
+
+	/** Fills the buffer from the channel, if any, otherwise from the underlying InputStream, if any. */
+	protected int fill (ByteBuffer buffer, int offset, int count) throws KryoException {
+		if (channel == null) return super.fill(buffer, offset, count);
+		try {
+			buffer.limit(offset + count);
+			buffer.position(offset);
+			return channel.read(buffer);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		} finally {
+			buffer.limit(buffer.capacity());
+			buffer.position(offset);
+		}
+	}
+
+	/** Reads the specified number of bytes as a read-only ByteBuffer. When a channel is set, the bytes are copied, because the
+	 * buffer is compacted and refilled from the channel and a view of it would not stay valid. */
+	public ByteBuffer readByteBuffer (int length) throws KryoException {
+		if (channel == null) return super.readByteBuffer(length);
+		ByteBuffer copy = ByteBuffer.allocate(length);
+		readBytes(copy);
+		copy.flip();
+		return copy.asReadOnlyBuffer();
+	}
+
+	/** Closes the channel, if any, and the underlying InputStream, if any. */
+	public void close () throws KryoException {
+		super.close();
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+}
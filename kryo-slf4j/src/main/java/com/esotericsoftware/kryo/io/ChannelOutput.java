@@ -0,0 +1,132 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** A {@link ByteBufferOutput} that flushes its direct buffer to a {@link WritableByteChannel}. The buffered bytes are handed to
+ * the channel as they are, without being copied to a byte array first. If the channel is a {@link GatheringByteChannel}, byte
+ * arrays larger than the free space in the buffer are written together with the buffered bytes in a single gathering write
+ * instead of being copied into the buffer.
+ * <p>
+ * The channel must be in blocking mode. */
+public class ChannelOutput extends ByteBufferOutput {
+	protected WritableByteChannel channel;
+	private final ByteBuffer[] gather = new ByteBuffer[2];
+
+	/** Creates an uninitialized Output. A channel must be set before the Output is used.
+	 * @see #setChannel(WritableByteChannel) */
+	public ChannelOutput () {
+		this(4096);
+	}
+
+	/** Creates an uninitialized Output. A channel must be set before the Output is used.
+	 * @param bufferSize The size of the direct buffer. */
+	public ChannelOutput (int bufferSize) {
+		super(bufferSize, bufferSize);
+	}
+
+	/** Creates a new Output for writing to a channel. A buffer size of 4096 is used. */
+	public ChannelOutput (WritableByteChannel channel) {
+		this(channel, 4096);
+	}
+
+	/** Creates a new Output for writing to a channel.
+	 * @param bufferSize The size of the direct buffer. */
+	public ChannelOutput (WritableByteChannel channel, int bufferSize) {
+		this(bufferSize);
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		this.channel = channel;
+	}
+
+	public WritableByteChannel getChannel () {
+		return channel;
+	}
+
+	/** Sets a new channel. The position and total are reset, discarding any buffered bytes.
+	 * @param channel May be null. */
+	public void setChannel (WritableByteChannel channel) {
+		this.channel = channel;
+		niobuffer.clear();
+		position = 0;
+		total = 0;
+	}
+
+	/** Writes the buffered bytes to the channel, if any, otherwise to the underlying OutputStream, if any. */
+	public void flush () throws KryoException {
+		if (channel == null) {
+			super.flush();
+			return;
+		}
+		niobuffer.position(0);
+		niobuffer.limit(position);
+		try {
+			while (niobuffer.hasRemaining())
+				channel.write(niobuffer);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		} finally {
+			niobuffer.clear();
+		}
+		total += position;
+		position = 0;
+	}
+
+	/** Flushes any buffered bytes and closes the channel, if any. */
+	public void close () throws KryoException {
+		super.close();
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/** Writes the bytes. Note the byte[] length is not written. */
+	public void writeBytes (byte[] bytes, int offset, int count) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		if (count <= capacity - position || !(channel instanceof GatheringByteChannel)) {
+			super.writeBytes(bytes, offset, count);
+			return;
+		}
+		niobuffer.position(0);
+		niobuffer.limit(position);
+		gather[0] = niobuffer;
+		gather[1] = ByteBuffer.wrap(bytes, offset, count);
+		try {
+			GatheringByteChannel channel = (GatheringByteChannel)this.channel;
+			while (gather[1].hasRemaining())
+				channel.write(gather);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		} finally {
+			gather[1] = null;
+			niobuffer.clear();
+		}
+		total += position + count;
+		position = 0;
+	}
+}
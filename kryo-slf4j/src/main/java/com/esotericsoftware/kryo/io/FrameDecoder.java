@@ -0,0 +1,171 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.ByteArrayPool;
+
+/** Accumulates bytes of length prefixed frames, as written by {@link FrameOutput}, and returns each complete frame as an Input,
+ * without ever blocking. Bytes can be read from a non-blocking channel with {@link #read(ReadableByteChannel)} or added from
+ * any partial read with {@link #add(ByteBuffer)}, then the complete frames are taken with {@link #next()}:
+ * 
+ * <pre>
+ * if (decoder.read(channel) == -1) channel.close();
+ * Input frame;
+ * while ((frame = decoder.next()) != null)
+ * 	handle(kryo.readClassAndObject(frame));
+ * </pre>
+ * 
+ * The Input returned by {@link #next()} reads the frame directly from the decoder's buffer, it is only valid until the decoder
+ * is used again. Reading past the end of a frame throws a buffer underflow exception instead of blocking.
+ * <p>
+ * The buffer is obtained from a {@link ByteArrayPool} when bytes arrive and returned to it when all frames have been taken, so
+ * many idle connections can share a few buffers. The buffer grows as needed for frames larger than the pool's array size. This
+ * class is not thread safe. */
+public class FrameDecoder {
+	private final ByteArrayPool pool;
+	private final int maxFrameLength;
+	private final Input frame = new Input();
+	private byte[] buffer;
+	private ByteBuffer niobuffer;
+	private int start, end;
+
+	/** Creates a decoder with its own pool of a single buffer.
+	 * @param bufferSize The size of the buffer, which grows as needed.
+	 * @param maxFrameLength An exception is thrown if a frame is longer than this. */
+	public FrameDecoder (int bufferSize, int maxFrameLength) {
+		this(new ByteArrayPool(bufferSize, 1), maxFrameLength);
+	}
+
+	/** @param pool Provides the buffer. The pool may be shared with other decoders used on the same thread.
+	 * @param maxFrameLength An exception is thrown if a frame is longer than this. */
+	public FrameDecoder (ByteArrayPool pool, int maxFrameLength) {
+		if (pool == null) throw new IllegalArgumentException("pool cannot be null.");
+		if (maxFrameLength < 0) throw new IllegalArgumentException("maxFrameLength cannot be < 0: " + maxFrameLength);
+		this.pool = pool;
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/** Reads as many bytes as the channel has available, up to the free space in the buffer. On a non-blocking channel this
+	 * returns 0 when no bytes are available.
+	 * @return the number of bytes read, or -1 if the end of the stream was reached. */
+	public int read (ReadableByteChannel channel) throws KryoException {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		ensureSpace();
+		if (niobuffer == null || niobuffer.array() != buffer) niobuffer = ByteBuffer.wrap(buffer);
+		niobuffer.limit(buffer.length);
+		niobuffer.position(end);
+		int count;
+		try {
+			count = channel.read(niobuffer);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		if (count > 0) end += count;
+		return count;
+	}
+
+	/** Adds the remaining bytes of the specified buffer. The buffer's position is advanced to its limit. */
+	public void add (ByteBuffer bytes) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		while (bytes.hasRemaining()) {
+			ensureSpace();
+			int count = Math.min(bytes.remaining(), buffer.length - end);
+			bytes.get(buffer, end, count);
+			end += count;
+		}
+	}
+
+	/** Adds the specified bytes. */
+	public void add (byte[] bytes, int offset, int count) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		while (count > 0) {
+			ensureSpace();
+			int copyCount = Math.min(count, buffer.length - end);
+			System.arraycopy(bytes, offset, buffer, end, copyCount);
+			end += copyCount;
+			offset += copyCount;
+			count -= copyCount;
+		}
+	}
+
+	/** Returns the next complete frame, or null if no frame is complete. The Input is reused and is only valid until the decoder
+	 * is used again.
+	 * @throws KryoException if the frame length is larger than the maximum frame length. */
+	public Input next () throws KryoException {
+		int length = frameLength();
+		if (length == -1 || end - start < length + 4) {
+			if (start == end) release();
+			return null;
+		}
+		frame.setBuffer(buffer, start + 4, length);
+		start += length + 4;
+		return frame;
+	}
+
+	/** Returns the number of bytes added that have not been taken as frames. */
+	public int available () {
+		return end - start;
+	}
+
+	/** Discards any bytes added and returns the buffer to the pool. */
+	public void release () {
+		if (buffer != null) pool.free(buffer);
+		buffer = null;
+		niobuffer = null;
+		start = 0;
+		end = 0;
+	}
+
+	/** Returns the length of the frame at the start of the buffer, or -1 if the length has not been added yet. */
+	private int frameLength () throws KryoException {
+		if (end - start < 4) return -1;
+		byte[] buffer = this.buffer;
+		int start = this.start;
+		int length = (buffer[start] & 0xFF) << 24 | (buffer[start + 1] & 0xFF) << 16 | (buffer[start + 2] & 0xFF) << 8
+			| buffer[start + 3] & 0xFF;
+		if (length < 0 || length > maxFrameLength)
+			throw new KryoException("Invalid frame length: " + length + ", max frame length: " + maxFrameLength);
+		return length;
+	}
+
+	/** Makes room for at least one more byte, compacting the buffer and growing it so the current frame fits. */
+	private void ensureSpace () throws KryoException {
+		if (buffer == null) {
+			buffer = pool.obtain();
+			return;
+		}
+		int length = frameLength();
+		int required = length == -1 ? 4 : length + 4;
+		if (buffer.length - start >= required && end < buffer.length) return;
+		if (required > buffer.length || end - start == buffer.length) {
+			byte[] newBuffer = new byte[(int)Math.max(required, Math.min(Integer.MAX_VALUE, buffer.length * 2L))];
+			System.arraycopy(buffer, start, newBuffer, 0, end - start);
+			pool.free(buffer);
+			buffer = newBuffer;
+		} else
+			System.arraycopy(buffer, start, buffer, 0, end - start);
+		end -= start;
+		start = 0;
+	}
+}
@@ -0,0 +1,135 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.esotericsoftware.kryo.KryoException;
+
+/** An Output that writes length prefixed frames, which can be read without blocking by a {@link FrameDecoder}. Each frame is
+ * the bytes written between {@link #beginFrame()} and {@link #endFrame()}, preceded by the frame length as a 4 byte int.
+ * <p>
+ * Completed frames are buffered until they are written with {@link #writeTo(WritableByteChannel)}, which never blocks on a
+ * non-blocking channel, or flushed to the OutputStream, if any. Bytes of a frame that has not been ended are never written. */
+public class FrameOutput extends Output {
+	private int frameStart = -1;
+	private ByteBuffer niobuffer;
+
+	/** Creates a new Output for writing frames to a byte array.
+	 * @param bufferSize The initial size of the buffer.
+	 * @param maxBufferSize The buffer is doubled as needed until it exceeds maxBufferSize and an exception is thrown. A single
+	 *           frame and its length cannot be larger than this. */
+	public FrameOutput (int bufferSize, int maxBufferSize) {
+		super(bufferSize, maxBufferSize);
+	}
+
+	/** Starts a new frame by reserving space for its length.
+	 * @throws KryoException if a frame has already been started. */
+	public void beginFrame () throws KryoException {
+		if (frameStart != -1) throw new KryoException("A frame has already been started.");
+		require(4);
+		frameStart = position;
+		position += 4;
+	}
+
+	/** Ends the current frame by writing its length before it, making it available to be written.
+	 * @return the length of the frame, not including the length itself. */
+	public int endFrame () throws KryoException {
+		if (frameStart == -1) throw new KryoException("No frame has been started.");
+		int length = position - frameStart - 4;
+		byte[] buffer = this.buffer;
+		buffer[frameStart] = (byte)(length >> 24);
+		buffer[frameStart + 1] = (byte)(length >> 16);
+		buffer[frameStart + 2] = (byte)(length >> 8);
+		buffer[frameStart + 3] = (byte)length;
+		frameStart = -1;
+		return length;
+	}
+
+	/** Returns the number of bytes of completed frames that have not been written yet. */
+	public int pending () {
+		return frameStart == -1 ? position : frameStart;
+	}
+
+	/** Writes as many bytes of completed frames as the channel accepts. On a non-blocking channel this may write fewer bytes than
+	 * are pending, the remaining bytes are written by the next call.
+	 * @return the number of bytes written. */
+	public int writeTo (WritableByteChannel channel) throws KryoException {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		int pending = pending();
+		if (pending == 0) return 0;
+		if (niobuffer == null || niobuffer.array() != buffer) niobuffer = ByteBuffer.wrap(buffer);
+		niobuffer.limit(pending);
+		niobuffer.position(0);
+		int count;
+		try {
+			count = channel.write(niobuffer);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		discard(count);
+		return count;
+	}
+
+	/** Writes the bytes of completed frames to the OutputStream, if any. The bytes of a started frame remain in the buffer. */
+	public void flush () throws KryoException {
+		if (outputStream == null) return;
+		int pending = pending();
+		if (pending == 0) return;
+		try {
+			outputStream.write(buffer, 0, pending);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		discard(pending);
+	}
+
+	/** Returns false, the bytes of a started frame must stay in the buffer until the frame is ended. */
+	protected boolean writeThrough (byte[] bytes, int offset, int count) {
+		return false;
+	}
+
+	/** Removes the specified number of written bytes from the start of the buffer. */
+	private void discard (int count) {
+		if (count <= 0) return;
+		System.arraycopy(buffer, count, buffer, 0, position - count);
+		position -= count;
+		total += count;
+		if (frameStart != -1) frameStart -= count;
+	}
+
+	/** Sets the position and total to zero, discarding any pending frames and any started frame. */
+	public void clear () {
+		super.clear();
+		frameStart = -1;
+	}
+
+	public void setOutputStream (OutputStream outputStream) {
+		super.setOutputStream(outputStream);
+		frameStart = -1;
+	}
+
+	public void setBuffer (byte[] buffer, int maxBufferSize) {
+		super.setBuffer(buffer, maxBufferSize);
+		frameStart = -1;
+	}
+}
@@ -23,6 +23,7 @@ import com.esotericsoftware.kryo.KryoException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /** An InputStream that reads data from a byte array and optionally fills the byte array from another InputStream as needed.
  * Utility methods are provided for efficiently reading primitive types and strings.
@@ -347,6 +348,32 @@ public class Input extends InputStream {
 		}
 	}
 
+	/** Reads bytes into the ByteBuffer from its position to its limit, without a temporary array. */
+	public void readBytes (ByteBuffer bytes) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		int count = bytes.remaining();
+		int copyCount = Math.min(limit - position, count);
+		while (true) {
+			bytes.put(buffer, position, copyCount);
+			position += copyCount;
+			count -= copyCount;
+			if (count == 0) break;
+			copyCount = Math.min(count, capacity);
+			require(copyCount);
+		}
+	}
+
+	/** Reads the specified number of bytes as a read-only ByteBuffer. When no InputStream is set, the ByteBuffer is a view of the
+	 * buffer and no bytes are copied, so it is only valid as long as the buffer's bytes are not changed. Otherwise the bytes are
+	 * copied, as the buffer is refilled from the InputStream. */
+	public ByteBuffer readByteBuffer (int length) throws KryoException {
+		if (inputStream != null) return ByteBuffer.wrap(readBytes(length)).asReadOnlyBuffer();
+		require(length);
+		ByteBuffer view = ByteBuffer.wrap(buffer, position, length).slice();
+		position += length;
+		return view.asReadOnlyBuffer();
+	}
+
 	// int
 
 	/** Reads a 4 byte int. */
@@ -479,11 +506,26 @@ public class Input extends InputStream {
 			return "";
 		}
 		charCount--;
+		int position = this.position;
+		if (limit - position >= charCount && scanAscii(position, position + charCount) == position + charCount) {
+			// All chars are ASCII, build the string from the buffer without decoding to chars first.
+			this.position = position + charCount;
+			return new String(buffer, 0, position, charCount);
+		}
 		if (chars.length < charCount) chars = new char[charCount];
 		readUtf8(charCount);
 		return new String(chars, 0, charCount);
 	}
 
+	/** Returns the index of the first byte from start (inclusive) to end (exclusive) that has bit 8 set, or end if no byte has
+	 * bit 8 set. Can be overridden to check more than one byte at a time. */
+	protected int scanAscii (int start, int end) {
+		byte[] buffer = this.buffer;
+		for (int i = start; i < end; i++)
+			if (buffer[i] < 0) return i;
+		return end;
+	}
+
 	private int readUtf8Length (int b) {
 		int result = b & 0x3F; // Mask all but first 6 bits.
 		if ((b & 0x40) != 0) { // Bit 7 means another byte, bit 8 means UTF8.
@@ -586,14 +628,10 @@ public class Input extends InputStream {
 
 	private String readAscii () {
 		byte[] buffer = this.buffer;
-		int end = position;
-		int start = end - 1;
-		int limit = this.limit;
-		int b;
-		do {
-			if (end == limit) return readAscii_slow();
-			b = buffer[end++];
-		} while ((b & 0x80) == 0);
+		int start = position - 1;
+		int end = scanAscii(position, limit);
+		if (end == limit) return readAscii_slow();
+		end++;
 		buffer[end - 1] &= 0x7F; // Mask end of ascii bit.
 		String value = new String(buffer, 0, start, end - start);
 		buffer[end - 1] |= 0x80;
@@ -887,4 +925,71 @@ public class Input extends InputStream {
 			array[i] = readDouble();
 		return array;
 	}
+
+	/** Bulk input of an int array written by {@link Output#writeDeltaInts(int[])}. */
+	public int[] readDeltaInts (int length) throws KryoException {
+		int[] array = new int[length];
+		if (length == 0) return array;
+		int previous = readVarInt(false);
+		array[0] = previous;
+		long[] deltas = new long[Math.min(length - 1, Output.DELTA_BLOCK_SIZE)];
+		byte[] block = new byte[deltas.length * 8 + 8];
+		for (int i = 1; i < length; i += Output.DELTA_BLOCK_SIZE) {
+			int count = Math.min(Output.DELTA_BLOCK_SIZE, length - i);
+			readDeltaBlock(block, deltas, count);
+			for (int ii = 0; ii < count; ii++) {
+				int zigzag = (int)deltas[ii];
+				previous += (zigzag >>> 1) ^ -(zigzag & 1);
+				array[i + ii] = previous;
+			}
+		}
+		return array;
+	}
+
+	/** Bulk input of a long array written by {@link Output#writeDeltaLongs(long[])}. */
+	public long[] readDeltaLongs (int length) throws KryoException {
+		long[] array = new long[length];
+		if (length == 0) return array;
+		long previous = readVarLong(false);
+		array[0] = previous;
+		long[] deltas = new long[Math.min(length - 1, Output.DELTA_BLOCK_SIZE)];
+		byte[] block = new byte[deltas.length * 8 + 8];
+		for (int i = 1; i < length; i += Output.DELTA_BLOCK_SIZE) {
+			int count = Math.min(Output.DELTA_BLOCK_SIZE, length - i);
+			readDeltaBlock(block, deltas, count);
+			for (int ii = 0; ii < count; ii++) {
+				long zigzag = deltas[ii];
+				previous += (zigzag >>> 1) ^ -(zigzag & 1);
+				array[i + ii] = previous;
+			}
+		}
+		return array;
+	}
+
+	/** Reads the bit width and the packed deltas of a block, then unpacks them 8 bytes at a time. The block array must have 8 bytes
+	 * more than the packed deltas, those bytes may be read but are not used. */
+	private void readDeltaBlock (byte[] block, long[] deltas, int count) {
+		int width = readByte() & 0xFF;
+		if (width > 64) throw new KryoException("Invalid delta bit width: " + width);
+		readBytes(block, 0, (count * width + 7) >>> 3);
+		long mask = width == 64 ? -1L : (1L << width) - 1;
+		long bits = 0;
+		int bitCount = 0, p = 0;
+		for (int i = 0; i < count; i++) {
+			if (bitCount >= width) {
+				deltas[i] = bits & mask;
+				bits >>>= width;
+				bitCount -= width;
+			} else {
+				long next = block[p] & 0xFFL | (block[p + 1] & 0xFFL) << 8 | (block[p + 2] & 0xFFL) << 16
+					| (block[p + 3] & 0xFFL) << 24 | (block[p + 4] & 0xFFL) << 32 | (block[p + 5] & 0xFFL) << 40
+					| (block[p + 6] & 0xFFL) << 48 | (long)block[p + 7] << 56;
+				p += 8;
+				deltas[i] = (bits | next << bitCount) & mask;
+				int used = width - bitCount;
+				bits = used == 64 ? 0 : next >>> used;
+				bitCount = 64 - used;
+			}
+		}
+	}
 }
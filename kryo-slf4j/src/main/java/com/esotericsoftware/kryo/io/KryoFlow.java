@@ -0,0 +1,318 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.io;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.pool.KryoPool;
+
+/** Reactive streams of objects: a {@link InputPublisher publisher} that decodes objects from an {@link Input} as they are
+ * requested, and a {@link OutputSubscriber subscriber} that encodes objects to an {@link Output} and flushes it in batches. Both
+ * use a {@link Kryo} from a {@link KryoPool} for the lifetime of the subscription.
+ * <p>
+ * The {@link Publisher}, {@link Subscriber} and {@link Subscription} interfaces have the same methods and contract as those in
+ * java.util.concurrent.Flow, which requires Java 9. On Java 9 or later they can be adapted to Flow with a trivial wrapper. */
+public class KryoFlow {
+	/** @see Subscriber */
+	static public interface Publisher<T> {
+		public void subscribe (Subscriber<? super T> subscriber);
+	}
+
+	/** Receives {@link #onSubscribe(Subscription)}, then up to the requested number of {@link #onNext(Object)} calls, then
+	 * optionally {@link #onComplete()} or {@link #onError(Throwable)}. Calls are never concurrent. */
+	static public interface Subscriber<T> {
+		public void onSubscribe (Subscription subscription);
+
+		public void onNext (T item);
+
+		public void onError (Throwable throwable);
+
+		public void onComplete ();
+	}
+
+	static public interface Subscription {
+		/** Adds to the number of items the subscriber is ready to receive.
+		 * @param n Must be > 0, else the subscriber receives {@link Subscriber#onError(Throwable)}. */
+		public void request (long n);
+
+		public void cancel ();
+	}
+
+	/** Publishes the objects read from an {@link Input} until its end is reached. Objects are only read when the subscriber has
+	 * requested them, so the input is consumed no faster than the subscriber can handle. Only one subscriber is allowed.
+	 * <p>
+	 * Objects are read by the thread that calls {@link Subscription#request(long)}, or by the executor if one was given, which
+	 * lets reading overlap with the caller's work. */
+	static public class InputPublisher<T> implements Publisher<T> {
+		final KryoPool kryoPool;
+		final Input input;
+		final Class<T> type;
+		final Executor executor;
+		private final AtomicBoolean subscribed = new AtomicBoolean();
+
+		/** @param type The type of all objects, which are read with {@link Kryo#readObject(Input, Class)}. If null, objects are
+		 *           read with {@link Kryo#readClassAndObject(Input)}. */
+		public InputPublisher (KryoPool kryoPool, Input input, Class<T> type) {
+			this(kryoPool, input, type, null);
+		}
+
+		/** @param type May be null, see {@link #InputPublisher(KryoPool, Input, Class)}.
+		 * @param executor Reads and publishes the objects. If null, the thread requesting objects is used. */
+		public InputPublisher (KryoPool kryoPool, Input input, Class<T> type, Executor executor) {
+			if (kryoPool == null) throw new IllegalArgumentException("kryoPool cannot be null.");
+			if (input == null) throw new IllegalArgumentException("input cannot be null.");
+			this.kryoPool = kryoPool;
+			this.input = input;
+			this.type = type;
+			this.executor = executor;
+		}
+
+		/** @param type May be null, see {@link #InputPublisher(KryoPool, Input, Class)}. */
+		public InputPublisher (KryoPool kryoPool, InputStream inputStream, Class<T> type) {
+			this(kryoPool, new Input(inputStream), type, null);
+		}
+
+		public void subscribe (Subscriber<? super T> subscriber) {
+			if (subscriber == null) throw new NullPointerException("subscriber cannot be null.");
+			if (!subscribed.compareAndSet(false, true)) {
+				subscriber.onSubscribe(new Subscription() {
+					public void request (long n) {
+					}
+
+					public void cancel () {
+					}
+				});
+				subscriber.onError(new IllegalStateException("Only one subscriber is allowed."));
+				return;
+			}
+			subscriber.onSubscribe(new InputSubscription(subscriber));
+		}
+
+		private class InputSubscription implements Subscription, Runnable {
+			private final Subscriber<? super T> subscriber;
+			private final AtomicLong requested = new AtomicLong();
+			private final AtomicInteger pending = new AtomicInteger();
+			private volatile boolean cancelled;
+			private volatile Throwable requestError;
+			// Only accessed while draining, which is never concurrent.
+			private Kryo kryo;
+			private boolean done;
+
+			InputSubscription (Subscriber<? super T> subscriber) {
+				this.subscriber = subscriber;
+			}
+
+			public void request (long n) {
+				if (n <= 0)
+					requestError = new IllegalArgumentException("Number of requested items must be > 0: " + n);
+				else {
+					while (true) {
+						long current = requested.get();
+						long next = current + n;
+						if (next < 0) next = Long.MAX_VALUE;
+						if (requested.compareAndSet(current, next)) break;
+					}
+				}
+				schedule();
+			}
+
+			public void cancel () {
+				cancelled = true;
+				schedule();
+			}
+
+			private void schedule () {
+				if (pending.getAndIncrement() != 0) return; // Already draining, which will see the new state.
+				if (executor == null)
+					run();
+				else
+					executor.execute(this);
+			}
+
+			public void run () {
+				int missed = 1;
+				do {
+					drain();
+					missed = pending.addAndGet(-missed);
+				} while (missed != 0);
+			}
+
+			private void drain () {
+				if (done) return;
+				if (cancelled) {
+					finish();
+					return;
+				}
+				if (requestError != null) {
+					finish();
+					subscriber.onError(requestError);
+					return;
+				}
+				long n = requested.get(), emitted = 0;
+				while (emitted != n) {
+					if (cancelled) {
+						finish();
+						return;
+					}
+					T object;
+					try {
+						if (input.eof()) {
+							finish();
+							subscriber.onComplete();
+							return;
+						}
+						if (kryo == null) kryo = kryoPool.borrow();
+						if (type == null)
+							object = (T)kryo.readClassAndObject(input);
+						else
+							object = kryo.readObject(input, type);
+						if (object == null) throw new KryoException("A null object was read.");
+					} catch (Throwable ex) {
+						finish();
+						subscriber.onError(ex);
+						return;
+					}
+					subscriber.onNext(object);
+					emitted++;
+				}
+				if (n != Long.MAX_VALUE) requested.addAndGet(-emitted);
+			}
+
+			private void finish () {
+				done = true;
+				if (kryo != null) {
+					kryoPool.release(kryo);
+					kryo = null;
+				}
+			}
+		}
+	}
+
+	/** Writes each object it receives to an {@link Output}. Objects are requested in batches: after each batch has been written
+	 * the output is flushed and the next batch is requested, so at most one batch is buffered. The output is also flushed on
+	 * completion or error. The output is not closed. */
+	static public class OutputSubscriber<T> implements Subscriber<T> {
+		private final KryoPool kryoPool;
+		private final Output output;
+		private final Class type;
+		private final int batchSize;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private Subscription subscription;
+		private Kryo kryo;
+		private int count;
+		private volatile Throwable error;
+
+		/** @param type If not null, objects are written with {@link Kryo#writeObject(Output, Object)} and must be read with the
+		 *           same type. If null, objects are written with {@link Kryo#writeClassAndObject(Output, Object)}.
+		 * @param batchSize The number of objects requested at a time and written between flushes. */
+		public OutputSubscriber (KryoPool kryoPool, Output output, Class<T> type, int batchSize) {
+			if (kryoPool == null) throw new IllegalArgumentException("kryoPool cannot be null.");
+			if (output == null) throw new IllegalArgumentException("output cannot be null.");
+			if (batchSize < 1) throw new IllegalArgumentException("batchSize must be > 0: " + batchSize);
+			this.kryoPool = kryoPool;
+			this.output = output;
+			this.type = type;
+			this.batchSize = batchSize;
+		}
+
+		/** @param type May be null, see {@link #OutputSubscriber(KryoPool, Output, Class, int)}. */
+		public OutputSubscriber (KryoPool kryoPool, OutputStream outputStream, Class<T> type, int batchSize) {
+			this(kryoPool, new Output(outputStream), type, batchSize);
+		}
+
+		public void onSubscribe (Subscription subscription) {
+			if (subscription == null) throw new NullPointerException("subscription cannot be null.");
+			if (this.subscription != null) {
+				subscription.cancel();
+				return;
+			}
+			this.subscription = subscription;
+			kryo = kryoPool.borrow();
+			subscription.request(batchSize);
+		}
+
+		public void onNext (T item) {
+			if (item == null) throw new NullPointerException("item cannot be null.");
+			if (kryo == null) return; // Already finished.
+			try {
+				if (type == null)
+					kryo.writeClassAndObject(output, item);
+				else
+					kryo.writeObject(output, item);
+				if (++count < batchSize) return;
+				count = 0;
+				output.flush();
+			} catch (Throwable ex) {
+				subscription.cancel();
+				finish(ex);
+				return;
+			}
+			subscription.request(batchSize);
+		}
+
+		public void onError (Throwable throwable) {
+			if (throwable == null) throw new NullPointerException("throwable cannot be null.");
+			try {
+				output.flush();
+			} catch (KryoException ignored) {
+			}
+			finish(throwable);
+		}
+
+		public void onComplete () {
+			try {
+				output.flush();
+				finish(null);
+			} catch (KryoException ex) {
+				finish(ex);
+			}
+		}
+
+		private void finish (Throwable error) {
+			if (kryo == null) return;
+			kryoPool.release(kryo);
+			kryo = null;
+			this.error = error;
+			done.countDown();
+		}
+
+		/** Waits until the stream has completed, failed or been cancelled because writing failed. */
+		public void await () throws InterruptedException {
+			done.await();
+		}
+
+		public boolean isDone () {
+			return done.getCount() == 0;
+		}
+
+		/** Returns the error received by {@link #onError(Throwable)} or thrown while writing, or null. */
+		public Throwable getError () {
+			return error;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.UnsafeUtil;
+
+/** A {@link ByteBufferInput} that reads a file through a sliding memory-mapped window. Only the window is mapped at any time, so
+ * files larger than 2GB can be read. When fewer bytes than required are left in the window, it is unmapped and the next window
+ * is mapped at the current file position. Bytes are read straight from the mapping, without being copied into a buffer.
+ * <p>
+ * Any ByteBuffer returned by {@link #getByteBuffer()} is only valid until the window moves. */
+public class MappedFileInput extends ByteBufferInput {
+	protected FileChannel channel;
+	protected long windowStart;
+	protected int windowSize;
+	private long startPosition, fileSize;
+
+	/** Creates a new Input for reading a file from the beginning. A window size of 64MB is used. */
+	public MappedFileInput (FileChannel channel) {
+		this(channel, 0, 64 * 1024 * 1024);
+	}
+
+	/** Creates a new Input for reading a file, starting at the specified file position.
+	 * @param windowSize The number of bytes mapped at once. An exception is thrown if a single read requires more than this. */
+	public MappedFileInput (FileChannel channel, long position, int windowSize) {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		if (position < 0) throw new IllegalArgumentException("position cannot be < 0: " + position);
+		if (windowSize < 16) throw new IllegalArgumentException("windowSize cannot be < 16: " + windowSize);
+		this.channel = channel;
+		this.windowSize = windowSize;
+		startPosition = position;
+		map(position);
+	}
+
+	public FileChannel getChannel () {
+		return channel;
+	}
+
+	public int getWindowSize () {
+		return windowSize;
+	}
+
+	/** Returns the file position of the next byte to be read. */
+	public long getFilePosition () {
+		return windowStart + position;
+	}
+
+	/** Moves the window so the next byte is read from the specified file position. The total is not changed. */
+	public void setFilePosition (long filePosition) {
+		if (filePosition < 0) throw new IllegalArgumentException("filePosition cannot be < 0: " + filePosition);
+		map(filePosition);
+	}
+
+	/** Unmaps the current window and maps a new one starting at the specified file position. The window is shorter than the
+	 * window size if the file ends before it. The file size is read again, so bytes appended to the file become readable. */
+	protected void map (long filePosition) throws KryoException {
+		ByteBuffer old = niobuffer;
+		if (old != null) total += position;
+		try {
+			fileSize = channel.size();
+			int size = (int)Math.max(0, Math.min(windowSize, fileSize - filePosition));
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, Math.min(filePosition, fileSize), size);
+			buffer.order(byteOrder);
+			niobuffer = buffer;
+			limit = size;
+		} catch (IOException ex) {
+			throw new KryoException("Unable to map file at position: " + filePosition, ex);
+		}
+		if (old != null) UnsafeUtil.releaseBuffer(old);
+		windowStart = filePosition;
+		capacity = windowSize;
+		position = 0;
+	}
+
+	/** Moves the window forward when it has fewer than the required bytes left.
+	 * @return the number of bytes remaining.
+	 * @throws KryoException if the end of the file is reached before required bytes are available (buffer underflow). */
+	protected int require (int required) throws KryoException {
+		int remaining = limit - position;
+		if (remaining >= required) return remaining;
+		if (required > windowSize)
+			throw new KryoException("Buffer too small: window size: " + windowSize + ", required: " + required);
+		map(windowStart + position);
+		if (limit < required) throw new KryoException("Buffer underflow.");
+		return limit;
+	}
+
+	/** Moves the window forward when it has fewer than the optional bytes left.
+	 * @return the number of bytes remaining, but not more than optional, or -1 if the end of the file was reached. */
+	protected int optional (int optional) throws KryoException {
+		int remaining = limit - position;
+		if (remaining >= optional) return optional;
+		optional = Math.min(optional, windowSize);
+		if (windowStart + limit < fileSize || remaining == 0) {
+			map(windowStart + position);
+			remaining = limit;
+		}
+		return remaining == 0 ? -1 : Math.min(remaining, optional);
+	}
+
+	/** Discards the specified number of bytes, moving the window past them if they are not all in the window. */
+	public void skip (int count) throws KryoException {
+		if (count <= limit - position) {
+			position += count;
+			niobuffer.position(position);
+			return;
+		}
+		map(windowStart + position + count);
+		total += count;
+	}
+
+	/** Maps the bytes as a separate read-only region of the file, so the returned buffer stays valid when the window moves. Each
+	 * call maps a region, which is only worthwhile for large values. */
+	public ByteBuffer readByteBuffer (int length) throws KryoException {
+		long filePosition = windowStart + position;
+		try {
+			if (length > channel.size() - filePosition) throw new KryoException("Buffer underflow.");
+			MappedByteBuffer view = channel.map(MapMode.READ_ONLY, filePosition, length);
+			skip(length);
+			return view;
+		} catch (IOException ex) {
+			throw new KryoException("Unable to map file at position: " + filePosition, ex);
+		}
+	}
+
+	public boolean eof () {
+		return optional(1) <= 0;
+	}
+
+	public void order (ByteOrder byteOrder) {
+		super.order(byteOrder);
+		niobuffer.order(byteOrder);
+	}
+
+	/** Maps the window at the file position where the Input started. */
+	public void rewind () {
+		map(startPosition);
+		total = 0;
+	}
+
+	/** Unmaps the window and closes the channel. */
+	public void close () throws KryoException {
+		if (niobuffer == null) return;
+		UnsafeUtil.releaseBuffer(niobuffer);
+		niobuffer = null;
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.UnsafeUtil;
+
+/** A {@link ByteBufferOutput} that writes to a file through a sliding memory-mapped window. Only the window is mapped at any
+ * time, so files larger than 2GB can be written. When the window is full, it is unmapped and the next window is mapped at the
+ * current file position. The file grows as windows are mapped past its end and is truncated to the written length on
+ * {@link #close()}, but never below its size when the Output was created.
+ * <p>
+ * The channel must be opened for reading and writing. Any ByteBuffer returned by {@link #getByteBuffer()} is only valid until
+ * the window moves. */
+public class MappedFileOutput extends ByteBufferOutput {
+	protected FileChannel channel;
+	protected long windowStart;
+	protected int windowSize;
+	private long initialSize, end;
+
+	/** Creates a new Output for writing to a file, starting at the beginning. A window size of 64MB is used. */
+	public MappedFileOutput (FileChannel channel) {
+		this(channel, 0, 64 * 1024 * 1024);
+	}
+
+	/** Creates a new Output for writing to a file, starting at the specified file position.
+	 * @param windowSize The number of bytes mapped at once. An exception is thrown if a single write requires more than this. */
+	public MappedFileOutput (FileChannel channel, long position, int windowSize) {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		if (position < 0) throw new IllegalArgumentException("position cannot be < 0: " + position);
+		if (windowSize < 16) throw new IllegalArgumentException("windowSize cannot be < 16: " + windowSize);
+		this.channel = channel;
+		this.windowSize = windowSize;
+		maxCapacity = windowSize;
+		try {
+			initialSize = channel.size();
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		map(position);
+		total = 0;
+	}
+
+	public FileChannel getChannel () {
+		return channel;
+	}
+
+	public int getWindowSize () {
+		return windowSize;
+	}
+
+	/** Returns the file position of the next byte to be written. */
+	public long getFilePosition () {
+		return windowStart + position;
+	}
+
+	/** Moves the window so the next byte is written at the specified file position. The total is not changed. */
+	public void setFilePosition (long filePosition) {
+		if (filePosition < 0) throw new IllegalArgumentException("filePosition cannot be < 0: " + filePosition);
+		map(filePosition);
+	}
+
+	/** Grows the file to at least the specified length up front, so mapping later windows does not have to extend it. The space
+	 * not written is removed again by {@link #close()}. */
+	public void preallocate (long length) throws KryoException {
+		try {
+			if (channel.size() >= length) return;
+			channel.write(ByteBuffer.allocate(1), length - 1);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Unmaps the current window and maps a new one starting at the specified file position. */
+	protected void map (long filePosition) throws KryoException {
+		long written = total();
+		ByteBuffer old = niobuffer;
+		if (old != null) end = Math.max(end, windowStart + position);
+		try {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, filePosition, windowSize);
+			buffer.order(byteOrder);
+			niobuffer = buffer;
+		} catch (IOException ex) {
+			throw new KryoException("Unable to map file at position: " + filePosition, ex);
+		}
+		if (old != null) UnsafeUtil.releaseBuffer(old);
+		windowStart = filePosition;
+		capacity = windowSize;
+		position = 0;
+		total = written;
+	}
+
+	/** Moves the window forward when it has fewer than the required bytes left.
+	 * @return true if the window was moved. */
+	protected boolean require (int required) throws KryoException {
+		if (capacity - position >= required) return false;
+		if (required > windowSize)
+			throw new KryoException("Buffer overflow. Window size: " + windowSize + ", required: " + required);
+		map(windowStart + position);
+		return true;
+	}
+
+	public void order (ByteOrder byteOrder) {
+		super.order(byteOrder);
+		if (niobuffer != null) niobuffer.order(byteOrder);
+	}
+
+	/** Does nothing, the written bytes are already in the file mapping. Use {@link #force()} to write them to the storage
+	 * device. */
+	public void flush () throws KryoException {
+	}
+
+	/** Forces the bytes written to the current window to be written to the storage device. */
+	public void force () {
+		((MappedByteBuffer)niobuffer).force();
+	}
+
+	/** Unmaps the window, truncates the file to the written length and closes the channel. */
+	public void close () throws KryoException {
+		if (niobuffer == null) return;
+		long length = Math.max(initialSize, Math.max(end, getFilePosition()));
+		UnsafeUtil.releaseBuffer(niobuffer);
+		niobuffer = null;
+		try {
+			if (channel.size() > length) channel.truncate(length);
+			channel.close();
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+}
@@ -23,6 +23,7 @@ import com.esotericsoftware.kryo.KryoException;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /** An OutputStream that buffers data in a byte array and optionally flushes to another OutputStream. Utility methods are provided
  * for efficiently writing primitive types and strings.
@@ -32,6 +33,10 @@ import java.io.OutputStream;
  * 
  * @author Nathan Sweet <misc@n4te.com> */
 public class Output extends OutputStream {
+	/** The number of values bit packed with the same width by {@link #writeDeltaInts(int[])} and
+	 * {@link #writeDeltaLongs(long[])}. */
+	static final int DELTA_BLOCK_SIZE = 128;
+
 	protected int maxCapacity;
 	protected long total;
 	protected int position;
@@ -232,9 +237,11 @@ public class Output extends OutputStream {
 		writeBytes(bytes, 0, bytes.length);
 	}
 
-	/** Writes the bytes. Note the byte[] length is not written. */
+	/** Writes the bytes. Note the byte[] length is not written. When writing to an OutputStream, bytes at least as many as the
+	 * buffer's capacity are passed to the OutputStream without being copied into the buffer. */
 	public void writeBytes (byte[] bytes, int offset, int count) throws KryoException {
 		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		if (count >= capacity && outputStream != null && writeThrough(bytes, offset, count)) return;
 		int copyCount = Math.min(capacity - position, count);
 		while (true) {
 			System.arraycopy(bytes, offset, buffer, position, copyCount);
@@ -247,6 +254,42 @@ public class Output extends OutputStream {
 		}
 	}
 
+	/** Called by {@link #writeBytes(byte[], int, int)} to flush the buffer and write bytes that would not fit in it directly to the
+	 * OutputStream. Subclasses whose {@link #flush()} frames the bytes or holds some back override this to return false, so the
+	 * bytes go through the buffer.
+	 * @return true if the bytes were written. */
+	protected boolean writeThrough (byte[] bytes, int offset, int count) throws KryoException {
+		flush();
+		try {
+			outputStream.write(bytes, offset, count);
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+		total += count;
+		return true;
+	}
+
+	/** Writes the bytes from the ByteBuffer's position to its limit, without a temporary array. The ByteBuffer's position is not
+	 * changed. Note the length is not written. */
+	public void writeBytes (ByteBuffer bytes) throws KryoException {
+		if (bytes == null) throw new IllegalArgumentException("bytes cannot be null.");
+		if (bytes.hasArray()) {
+			writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+			return;
+		}
+		ByteBuffer source = bytes.duplicate();
+		int count = source.remaining();
+		int copyCount = Math.min(capacity - position, count);
+		while (true) {
+			source.get(buffer, position, copyCount);
+			position += copyCount;
+			count -= copyCount;
+			if (count == 0) return;
+			copyCount = Math.min(capacity, count);
+			require(copyCount);
+		}
+	}
+
 	// int
 
 	/** Writes a 4 byte int. Uses BIG_ENDIAN byte order. */
@@ -326,42 +369,42 @@ public class Output extends OutputStream {
 			writeByte(1 | 0x80); // 1 means empty string, bit 8 means UTF8.
 			return;
 		}
-		// Detect ASCII.
-		boolean ascii = false;
 		if (charCount > 1 && charCount < 64) {
-			ascii = true;
-			for (int i = 0; i < charCount; i++) {
-				int c = value.charAt(i);
-				if (c > 127) {
-					ascii = false;
-					break;
-				}
-			}
-		}
-		if (ascii) {
-			if (capacity - position < charCount)
-				writeAscii_slow(value, charCount);
-			else {
-				value.getBytes(0, charCount, buffer, position);
-				position += charCount;
-			}
-			buffer[position - 1] |= 0x80;
-		} else {
-			writeUtf8Length(charCount + 1);
-			int charIndex = 0;
 			if (capacity - position >= charCount) {
-				// Try to write 8 bit chars.
+				// Copy the chars as ASCII, detecting non-ASCII in the same pass. The copy is discarded if a char is not ASCII.
 				byte[] buffer = this.buffer;
 				int position = this.position;
+				int charIndex = 0;
 				for (; charIndex < charCount; charIndex++) {
 					int c = value.charAt(charIndex);
 					if (c > 127) break;
 					buffer[position++] = (byte)c;
 				}
-				this.position = position;
+				if (charIndex == charCount) {
+					buffer[position - 1] |= 0x80; // Bit 8 means end of ASCII.
+					this.position = position;
+					return;
+				}
+			} else if (isAscii(value, charCount)) {
+				writeAscii_slow(value, charCount);
+				buffer[position - 1] |= 0x80;
+				return;
 			}
-			if (charIndex < charCount) writeString_slow(value, charCount, charIndex);
 		}
+		writeUtf8Length(charCount + 1);
+		int charIndex = 0;
+		if (capacity - position >= charCount) {
+			// Try to write 8 bit chars.
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			for (; charIndex < charCount; charIndex++) {
+				int c = value.charAt(charIndex);
+				if (c > 127) break;
+				buffer[position++] = (byte)c;
+			}
+			this.position = position;
+		}
+		if (charIndex < charCount) writeString_slow(value, charCount, charIndex);
 	}
 
 	/** Writes the length and CharSequence as UTF8, or null. The string can be read using {@link Input#readString()} or
@@ -476,6 +519,12 @@ public class Output extends OutputStream {
 		}
 	}
 
+	static private boolean isAscii (String value, int charCount) {
+		for (int i = 0; i < charCount; i++)
+			if (value.charAt(i) > 127) return false;
+		return true;
+	}
+
 	private void writeAscii_slow (String value, int charCount) throws KryoException {
 		byte[] buffer = this.buffer;
 		int charIndex = 0;
@@ -728,4 +777,81 @@ public class Output extends OutputStream {
 		for (int i = 0, n = object.length; i < n; i++)
 			writeDouble(object[i]);
 	}
+
+	/** Bulk output of an int array as zigzag encoded deltas between consecutive values. The first value is written as a
+	 * varint, the deltas are written in blocks of 128, each bit packed to the number of bits of the largest delta in the block, so
+	 * sorted or clustered values take very few bytes. The length is not written. The array can be read using
+	 * {@link Input#readDeltaInts(int)}. */
+	public void writeDeltaInts (int[] object) throws KryoException {
+		int n = object.length;
+		if (n == 0) return;
+		// The first value is written separately, so it doesn't widen the first block.
+		int previous = object[0];
+		writeVarInt(previous, false);
+		long[] deltas = new long[Math.min(n - 1, DELTA_BLOCK_SIZE)];
+		byte[] block = new byte[deltas.length * 8 + 1];
+		for (int i = 1; i < n; i += DELTA_BLOCK_SIZE) {
+			int count = Math.min(DELTA_BLOCK_SIZE, n - i);
+			long bits = 0;
+			for (int ii = 0; ii < count; ii++) {
+				int value = object[i + ii];
+				int delta = value - previous;
+				previous = value;
+				long zigzag = ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL;
+				deltas[ii] = zigzag;
+				bits |= zigzag;
+			}
+			writeDeltaBlock(block, deltas, count, 64 - Long.numberOfLeadingZeros(bits));
+		}
+	}
+
+	/** Bulk output of a long array as zigzag encoded deltas between consecutive values. The first value is written as a
+	 * varint, the deltas are written in blocks of 128, each bit packed to the number of bits of the largest delta in the block, so
+	 * sorted or clustered values take very few bytes. The length is not written. The array can be read using
+	 * {@link Input#readDeltaLongs(int)}. */
+	public void writeDeltaLongs (long[] object) throws KryoException {
+		int n = object.length;
+		if (n == 0) return;
+		// The first value is written separately, so it doesn't widen the first block.
+		long previous = object[0];
+		writeVarLong(previous, false);
+		long[] deltas = new long[Math.min(n - 1, DELTA_BLOCK_SIZE)];
+		byte[] block = new byte[deltas.length * 8 + 1];
+		for (int i = 1; i < n; i += DELTA_BLOCK_SIZE) {
+			int count = Math.min(DELTA_BLOCK_SIZE, n - i);
+			long bits = 0;
+			for (int ii = 0; ii < count; ii++) {
+				long value = object[i + ii];
+				long delta = value - previous;
+				previous = value;
+				long zigzag = (delta << 1) ^ (delta >> 63);
+				deltas[ii] = zigzag;
+				bits |= zigzag;
+			}
+			writeDeltaBlock(block, deltas, count, 64 - Long.numberOfLeadingZeros(bits));
+		}
+	}
+
+	/** Writes the bit width, then the deltas packed into that many bits each, least significant bit first. */
+	private void writeDeltaBlock (byte[] block, long[] deltas, int count, int width) {
+		block[0] = (byte)width;
+		int p = 1;
+		long bits = 0;
+		int bitCount = 0;
+		for (int i = 0; i < count; i++) {
+			long delta = deltas[i];
+			bits |= delta << bitCount;
+			bitCount += width;
+			if (bitCount >= 64) {
+				for (int ii = 0; ii < 8; ii++, bits >>>= 8)
+					block[p++] = (byte)bits;
+				bitCount -= 64;
+				// Keep the bits of the delta that did not fit.
+				bits = bitCount == 0 ? 0 : delta >>> (width - bitCount);
+			}
+		}
+		for (; bitCount > 0; bitCount -= 8, bits >>>= 8)
+			block[p++] = (byte)bits;
+		writeBytes(block, 0, p);
+	}
 }
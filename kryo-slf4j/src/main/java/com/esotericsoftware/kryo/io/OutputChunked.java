@@ -66,6 +66,11 @@ public class OutputChunked extends Output {
 		super.flush();
 	}
 
+	/** Returns false, every byte must be written as part of a chunk. */
+	protected boolean writeThrough (byte[] bytes, int offset, int count) {
+		return false;
+	}
+
 	private void writeChunkSize () throws IOException {
 		int size = position();
 		LOGGER.trace("writeChunkSize : Write chunk: {}", size);
@@ -0,0 +1,219 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.util.ByteArrayPool;
+import com.esotericsoftware.kryo.util.IntArray;
+
+/** An Output that grows by appending fixed size pages from a {@link ByteArrayPool}, instead of doubling and copying a single
+ * buffer. The written bytes are never copied into one contiguous array unless {@link #toBytes()} is called. They can be
+ * accessed as pages or as {@link #getByteBuffers() ByteBuffers}, or written to a stream or channel.
+ * <p>
+ * When the current page does not have room for a write, the page is ended and a new page is started, so a page may have
+ * unused bytes at its end. {@link #position()} is the position in the current page, {@link #total()} is the number of bytes
+ * written to all pages.
+ * <p>
+ * If an OutputStream is set, {@link #flush()} writes all pages to it and returns them to the pool. */
+public class SegmentedOutput extends Output {
+	private final ByteArrayPool pool;
+	private final ArrayList<byte[]> pages = new ArrayList();
+	private final IntArray pageLengths = new IntArray();
+	/** The array passed to {@link #setBuffer(byte[], int)}, which belongs to the caller and is never returned to the pool. */
+	private byte[] callerPage;
+
+	/** Creates a new Output with its own pool of pages.
+	 * @param pageSize The size of each page. An exception is thrown if a single write requires more than this. */
+	public SegmentedOutput (int pageSize) {
+		this(new ByteArrayPool(pageSize, 16));
+	}
+
+	/** @param pool Provides the pages. The pool may be shared with other Outputs used on the same thread. */
+	public SegmentedOutput (ByteArrayPool pool) {
+		if (pool == null) throw new IllegalArgumentException("pool cannot be null.");
+		this.pool = pool;
+		buffer = pool.obtain();
+		capacity = buffer.length;
+		maxCapacity = capacity;
+	}
+
+	/** Creates a new Output for writing to an OutputStream.
+	 * @param pageSize The size of each page. An exception is thrown if a single write requires more than this. */
+	public SegmentedOutput (OutputStream outputStream, int pageSize) {
+		this(pageSize);
+		if (outputStream == null) throw new IllegalArgumentException("outputStream cannot be null.");
+		this.outputStream = outputStream;
+	}
+
+	public ByteArrayPool getPool () {
+		return pool;
+	}
+
+	/** Ends the current page and starts a new one when the current page does not have the required bytes left.
+	 * @return true if a new page was started. */
+	protected boolean require (int required) throws KryoException {
+		if (capacity - position >= required) return false;
+		if (required > pool.getArraySize())
+			throw new KryoException("Buffer overflow. Page size: " + pool.getArraySize() + ", required: " + required);
+		if (buffer != null) {
+			pages.add(buffer);
+			pageLengths.add(position);
+		}
+		buffer = pool.obtain();
+		capacity = buffer.length;
+		total += position;
+		position = 0;
+		return true;
+	}
+
+	/** Returns the number of pages, including the current page. */
+	public int getPageCount () {
+		return buffer == null ? pages.size() : pages.size() + 1;
+	}
+
+	/** Returns the page at the specified index. The last page is the current page. */
+	public byte[] getPage (int index) {
+		if (index == pages.size()) return buffer;
+		return pages.get(index);
+	}
+
+	/** Returns the number of bytes written to the page at the specified index. */
+	public int getPageLength (int index) {
+		if (index == pages.size()) return position;
+		return pageLengths.get(index);
+	}
+
+	/** Returns a ByteBuffer wrapping the written bytes of each page, in order. The ByteBuffers are only valid until the Output is
+	 * cleared, flushed or released. */
+	public ByteBuffer[] getByteBuffers () {
+		int count = getPageCount();
+		ByteBuffer[] buffers = new ByteBuffer[count];
+		for (int i = 0; i < count; i++)
+			buffers[i] = ByteBuffer.wrap(getPage(i), 0, getPageLength(i));
+		return buffers;
+	}
+
+	/** Writes all pages to the stream. The pages are kept. */
+	public void writeTo (OutputStream outputStream) throws KryoException {
+		if (outputStream == null) throw new IllegalArgumentException("outputStream cannot be null.");
+		try {
+			for (int i = 0, n = getPageCount(); i < n; i++)
+				outputStream.write(getPage(i), 0, getPageLength(i));
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Writes all pages to the channel, with gathering writes if the channel is a {@link GatheringByteChannel}. The channel must be
+	 * in blocking mode. The pages are kept. */
+	public void writeTo (WritableByteChannel channel) throws KryoException {
+		if (channel == null) throw new IllegalArgumentException("channel cannot be null.");
+		ByteBuffer[] buffers = getByteBuffers();
+		try {
+			if (channel instanceof GatheringByteChannel) {
+				GatheringByteChannel gathering = (GatheringByteChannel)channel;
+				int offset = 0;
+				while (offset < buffers.length) {
+					gathering.write(buffers, offset, buffers.length - offset);
+					while (offset < buffers.length && !buffers[offset].hasRemaining())
+						offset++;
+				}
+			} else {
+				for (int i = 0; i < buffers.length; i++)
+					while (buffers[i].hasRemaining())
+						channel.write(buffers[i]);
+			}
+		} catch (IOException ex) {
+			throw new KryoException(ex);
+		}
+	}
+
+	/** Returns a new byte array containing the bytes of all pages. */
+	public byte[] toBytes () {
+		long total = total();
+		if (total > Integer.MAX_VALUE) throw new KryoException("Too many bytes for a byte array: " + total);
+		byte[] bytes = new byte[(int)total];
+		int offset = 0;
+		for (int i = 0, n = getPageCount(); i < n; i++) {
+			int length = getPageLength(i);
+			System.arraycopy(getPage(i), 0, bytes, offset, length);
+			offset += length;
+		}
+		return bytes;
+	}
+
+	/** Writes all pages to the OutputStream, if any, and returns all but the current page to the pool. */
+	public void flush () throws KryoException {
+		if (outputStream == null) return;
+		writeTo(outputStream);
+		long total = total();
+		clear();
+		this.total = total;
+	}
+
+	/** Returns all but the current page to the pool and sets the position and total to zero. */
+	public void clear () {
+		for (int i = 0, n = pages.size(); i < n; i++)
+			free(pages.get(i));
+		pages.clear();
+		pageLengths.clear();
+		position = 0;
+		total = 0;
+	}
+
+	/** Returns all pages to the pool. A new page is obtained from the pool when more bytes are written. */
+	public void release () {
+		clear();
+		if (buffer != null) free(buffer);
+		buffer = null;
+		capacity = 0;
+	}
+
+	private void free (byte[] page) {
+		if (page == callerPage)
+			callerPage = null;
+		else
+			pool.free(page);
+	}
+
+	/** Returns all pages to the pool and uses the specified array as the first page. Later pages are obtained from the pool. The
+	 * position and total are reset and the {@link #setOutputStream(OutputStream) OutputStream} is set to null. The array still
+	 * belongs to the caller, it is never returned to the pool.
+	 * @param maxBufferSize Ignored, the output grows by adding pages rather than by growing the buffer. */
+	public void setBuffer (byte[] buffer, int maxBufferSize) {
+		if (buffer == null) throw new IllegalArgumentException("buffer cannot be null.");
+		release();
+		this.buffer = buffer;
+		capacity = buffer.length;
+		callerPage = buffer;
+		outputStream = null;
+	}
+
+	public void setOutputStream (OutputStream outputStream) {
+		clear();
+		this.outputStream = outputStream;
+	}
+}
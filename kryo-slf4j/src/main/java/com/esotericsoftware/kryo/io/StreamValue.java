@@ -0,0 +1,135 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import com.esotericsoftware.kryo.serializers.StreamValueSerializer;
+
+/** A binary or text value that is too large to be held in memory. When written by {@link StreamValueSerializer}, the bytes are
+ * read from the stream and written in chunks, so only a chunk is in memory at once. When read, the stream reads the chunks from
+ * the {@link Input} as they are needed, so the value is never materialized.
+ * <p>
+ * A value that was read is backed by the Input, so its stream must be read to the end or {@link #close() closed} before anything
+ * else is read from the Input. This is easiest when the value is the last field of the last object in a message. Note that
+ * {@link com.esotericsoftware.kryo.serializers.FieldSerializer} orders fields by name. */
+public class StreamValue {
+	private final InputStream inputStream;
+
+	/** @param inputStream Read to the end and closed when the value is written. */
+	public StreamValue (InputStream inputStream) {
+		if (inputStream == null) throw new IllegalArgumentException("inputStream cannot be null.");
+		this.inputStream = inputStream;
+	}
+
+	/** @param channel Read to the end and closed when the value is written. */
+	public StreamValue (ReadableByteChannel channel) {
+		this(Channels.newInputStream(channel));
+	}
+
+	/** Creates a text value, which is encoded in chunks as it is written.
+	 * @param reader Read to the end and closed when the value is written. */
+	public StreamValue (Reader reader, Charset charset) {
+		this(new ReaderInputStream(reader, charset));
+	}
+
+	/** Returns the stream of the value's bytes. The stream can only be read once. */
+	public InputStream getInputStream () {
+		return inputStream;
+	}
+
+	public ReadableByteChannel getChannel () {
+		return Channels.newChannel(inputStream);
+	}
+
+	/** Returns a reader that decodes the value's bytes. */
+	public Reader getReader (Charset charset) {
+		return new InputStreamReader(inputStream, charset);
+	}
+
+	/** Closes the stream. For a value that was read, the remaining bytes are skipped so the Input can be read further. */
+	public void close () throws IOException {
+		inputStream.close();
+	}
+
+	/** Encodes the characters of a reader a chunk at a time. */
+	static private class ReaderInputStream extends InputStream {
+		private final Reader reader;
+		private final CharsetEncoder encoder;
+		private final CharBuffer chars = CharBuffer.allocate(4096);
+		private final ByteBuffer bytes;
+		private boolean endOfInput, flushed;
+
+		ReaderInputStream (Reader reader, Charset charset) {
+			if (reader == null) throw new IllegalArgumentException("reader cannot be null.");
+			this.reader = reader;
+			encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			bytes = ByteBuffer.allocate((int)Math.ceil(chars.capacity() * encoder.maxBytesPerChar()));
+			chars.flip();
+			bytes.flip();
+		}
+
+		public int read () throws IOException {
+			if (!bytes.hasRemaining() && !fill()) return -1;
+			return bytes.get() & 0xFF;
+		}
+
+		public int read (byte[] b, int offset, int length) throws IOException {
+			if (length == 0) return 0;
+			if (!bytes.hasRemaining() && !fill()) return -1;
+			int count = Math.min(length, bytes.remaining());
+			bytes.get(b, offset, count);
+			return count;
+		}
+
+		/** @return false if there are no more bytes. */
+		private boolean fill () throws IOException {
+			bytes.clear();
+			while (bytes.position() == 0 && !flushed) {
+				if (!endOfInput) {
+					chars.compact();
+					if (reader.read(chars) == -1) endOfInput = true;
+					chars.flip();
+				}
+				encoder.encode(chars, bytes, endOfInput);
+				if (endOfInput && !chars.hasRemaining()) {
+					encoder.flush(bytes);
+					flushed = true;
+				}
+			}
+			bytes.flip();
+			return bytes.hasRemaining();
+		}
+
+		public void close () throws IOException {
+			reader.close();
+		}
+	}
+}
@@ -21,9 +21,11 @@ package com.esotericsoftware.kryo.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteOrder;
 
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.util.UnsafeUtil;
+import com.esotericsoftware.kryo.util.Util;
 
 import static com.esotericsoftware.kryo.util.UnsafeUtil.*;
 
@@ -43,6 +45,8 @@ public final class UnsafeInput extends Input {
 
 	private boolean varIntsEnabled = false;
 
+	private static final boolean isLittleEndian = ByteOrder.nativeOrder().equals(ByteOrder.LITTLE_ENDIAN);
+
 	/** Creates an uninitialized Input. {@link #setBuffer(byte[], int, int)} must be called before the Input is used. */
 	public UnsafeInput () {
 	}
@@ -75,6 +79,17 @@ public final class UnsafeInput extends Input {
 		super(inputStream, bufferSize);
 	}
 
+	/** Checks 8 bytes at a time for a byte that has bit 8 set. */
+	protected int scanAscii (int start, int end) {
+		byte[] buffer = this.buffer;
+		int i = start;
+		for (int n = end - 8; i <= n; i += 8)
+			if ((unsafe().getLong(buffer, byteArrayBaseOffset + i) & 0x8080808080808080L) != 0) break;
+		for (; i < end; i++)
+			if (buffer[i] < 0) return i;
+		return end;
+	}
+
 	// int
 
 	/** Reads a 4 byte int. */
@@ -135,6 +150,39 @@ public final class UnsafeInput extends Input {
 	}
 
 
+	/** Reads a 1-5 byte int. When at least 8 bytes are buffered, the bytes are read with a single 8 byte load and the length is
+	 * found from the continuation bits, otherwise they are read one at a time. */
+	public int readVarInt (boolean optimizePositive) throws KryoException {
+		if (limit - position < 8) return super.readVarInt(optimizePositive);
+		long word = unsafe().getLong(buffer, byteArrayBaseOffset + position);
+		if (!isLittleEndian) word = Util.swapLong(word);
+		// The first byte without bit 8 set is the last byte, the 5th byte is always the last.
+		int length = (Long.numberOfTrailingZeros(~word & 0x80808080L | 0x8000000000L) + 1) >>> 3;
+		word &= -1L >>> (64 - (length << 3));
+		int result = (int)(word & 0x7F | (word >>> 1 & 0x3F80) | (word >>> 2 & 0x1FC000) | (word >>> 3 & 0xFE00000)
+			| (word >>> 4 & 0xF0000000L));
+		position += length;
+		return optimizePositive ? result : ((result >>> 1) ^ -(result & 1));
+	}
+
+	/** Reads a 1-9 byte long. When at least 8 bytes are buffered, longs up to 8 bytes are read with a single 8 byte load and the
+	 * length is found from the continuation bits, otherwise they are read one at a time. */
+	public long readVarLong (boolean optimizePositive) throws KryoException {
+		if (limit - position < 8) return super.readVarLong(optimizePositive);
+		long word = unsafe().getLong(buffer, byteArrayBaseOffset + position);
+		if (!isLittleEndian) word = Util.swapLong(word);
+		long stops = ~word & 0x8080808080808080L;
+		if (stops == 0) return super.readVarLong(optimizePositive); // 9 bytes.
+		int length = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+		word &= -1L >>> (64 - (length << 3));
+		long result = word & 0x7F | (word >>> 1 & 0x3F80) | (word >>> 2 & 0x1FC000) | (word >>> 3 & 0xFE00000)
+			| (word >>> 4 & 0x7F0000000L) | (word >>> 5 & 0x3F800000000L) | (word >>> 6 & 0x1FC0000000000L)
+			| (word >>> 7 & 0xFE000000000000L);
+		position += length;
+		if (!optimizePositive) result = (result >>> 1) ^ -(result & 1);
+		return result;
+	}
+
 	public int readInt (boolean optimizePositive) throws KryoException {
 		if (!varIntsEnabled)
 			return readInt();
@@ -143,6 +143,16 @@ public final class UnsafeMemoryInput extends ByteBufferInput {
 		return super.readByte();
 	}
 
+	public void readBytes (byte[] bytes, int offset, int count) throws KryoException {
+		super.niobuffer.position(position);
+		super.readBytes(bytes, offset, count);
+	}
+
+	public void readBytes (ByteBuffer bytes) throws KryoException {
+		super.niobuffer.position(position);
+		super.readBytes(bytes);
+	}
+
 	/** Reads a 2 byte char. */
 	public char readChar () throws KryoException {
 		require(2);
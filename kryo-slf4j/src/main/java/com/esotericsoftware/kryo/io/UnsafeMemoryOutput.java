@@ -142,6 +142,16 @@ public final class UnsafeMemoryOutput extends ByteBufferOutput {
 		super.writeByte(value);
 	}
 
+	public void writeBytes (byte[] bytes, int offset, int count) throws KryoException {
+		super.niobuffer.position(position);
+		super.writeBytes(bytes, offset, count);
+	}
+
+	public void writeBytes (ByteBuffer bytes) throws KryoException {
+		super.niobuffer.position(position);
+		super.writeBytes(bytes);
+	}
+
 	/** Writes a 1 byte boolean. */
 	final public void writeBoolean (boolean value) throws KryoException {
 		super.niobuffer.position(position);
@@ -225,9 +235,8 @@ public final class UnsafeMemoryOutput extends ByteBufferOutput {
 			return 4;
 		}
 
-		varInt |= (0x80 << 24);
+		varInt |= (0x80L << 24);
 		varInt |= ((value & 0x7F) << 32);
-		varInt &= 0xFFFFFFFFL;
 		writeLittleEndianLong(varInt);
 		position -= 3;
 		return 5;
@@ -324,7 +333,7 @@ public final class UnsafeMemoryOutput extends ByteBufferOutput {
 
 		varLong |= (0x80L << 56);
 		writeLittleEndianLong(varLong);
-		write((byte)((value & 0x7F)));
+		writeByte((byte)value);
 		return 9;
 	}
 
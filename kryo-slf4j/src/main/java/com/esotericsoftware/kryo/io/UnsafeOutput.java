@@ -50,6 +50,13 @@ public final class UnsafeOutput extends Output {
 
 	private static final boolean isLittleEndian = ByteOrder.nativeOrder().equals(ByteOrder.LITTLE_ENDIAN);
 
+	/** The number of bytes of a variable length long, indexed by its number of leading zero bits. */
+	static private final int[] varIntLength = new int[65];
+	static {
+		for (int i = 0; i <= 64; i++)
+			varIntLength[i] = Math.max(1, (64 - i + 6) / 7);
+	}
+
 	/** Creates an uninitialized Output. {@link #setBuffer(byte[], int)} must be called before the Output is used. */
 	public UnsafeOutput () {
 	}
@@ -100,13 +107,6 @@ public final class UnsafeOutput extends Output {
 		position += 4;
 	}
 
-	final private void writeLittleEndianInt (int val) {
-		if (isLittleEndian)
-			writeInt(val);
-		else
-			writeInt(Util.swapInt(val));
-	}
-
 	/** Writes a 4 byte float. */
 	final public void writeFloat (float value) throws KryoException {
 		require(4);
@@ -128,13 +128,6 @@ public final class UnsafeOutput extends Output {
 		position += 8;
 	}
 
-	final private void writeLittleEndianLong (long val) {
-		if (isLittleEndian)
-			writeLong(val);
-		else
-			writeLong(Util.swapLong(val));
-	}
-
 	/** Writes an 8 byte double. */
 	final public void writeDouble (double value) throws KryoException {
 		require(8);
@@ -165,156 +158,41 @@ public final class UnsafeOutput extends Output {
 			return writeVarLong(value, optimizePositive);
 	}
 
-	final public int writeVarInt (int val, boolean optimizePositive) throws KryoException {
-		int value = val;
+	/** Writes a 1-5 byte int. The bytes are spread into a long and written with a single 8 byte store when the buffer has room for
+	 * it, otherwise they are written one at a time. */
+	final public int writeVarInt (int value, boolean optimizePositive) throws KryoException {
+		if (capacity - position < 8) return super.writeVarInt(value, optimizePositive);
 		if (!optimizePositive) value = (value << 1) ^ (value >> 31);
-		int varInt = 0;
-
-		varInt = (value & 0x7F);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			write(varInt);
+		if (value >>> 7 == 0) {
+			buffer[position++] = (byte)value;
 			return 1;
 		}
-
-		varInt |= 0x80;
-		varInt |= ((value & 0x7F) << 8);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 2;
-			return 2;
-		}
-
-		varInt |= 0x80 << 8;
-		varInt |= ((value & 0x7F) << 16);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 1;
-			return 3;
-		}
-
-		varInt |= 0x80 << 16;
-		varInt |= ((value & 0x7F) << 24);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 0;
-			return 4;
-		}
-
-		varInt |= 0x80 << 24;
-		long varLong = varInt | (((long)(value & 0x7F)) << 32);
-		varInt &= 0xFFFFFFFFL;
-		writeLittleEndianLong(varLong);
-		position -= 3;
-		return 5;
+		long v = value & 0xFFFFFFFFL;
+		int length = varIntLength[Long.numberOfLeadingZeros(v)];
+		long word = v & 0x7F | (v << 1 & 0x7F00) | (v << 2 & 0x7F0000) | (v << 3 & 0x7F000000L) | (v << 4 & 0x7F00000000L);
+		word |= 0x8080808080808080L & ((1L << ((length - 1) << 3)) - 1); // Continuation bits of all but the last byte.
+		unsafe().putLong(buffer, byteArrayBaseOffset + position, isLittleEndian ? word : Util.swapLong(word));
+		position += length;
+		return length;
 	}
 
-	// TODO: Make it work on little and big endian machines
+	/** Writes a 1-9 byte long. Longs up to 8 bytes are spread into a long and written with a single 8 byte store when the buffer
+	 * has room for it, otherwise they are written one at a time. */
 	final public int writeVarLong (long value, boolean optimizePositive) throws KryoException {
-		if (!optimizePositive) value = (value << 1) ^ (value >> 63);
-		int varInt = 0;
-
-		varInt = (int)(value & 0x7F);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeByte(varInt);
+		if (capacity - position < 8) return super.writeVarLong(value, optimizePositive);
+		long v = optimizePositive ? value : (value << 1) ^ (value >> 63);
+		if (v >>> 7 == 0) {
+			buffer[position++] = (byte)v;
 			return 1;
 		}
-
-		varInt |= 0x80;
-		varInt |= (value << 8);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 2;
-			return 2;
-		}
-
-		varInt |= (0x80 << 8);
-		varInt |= (value << 16);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 1;
-			return 3;
-		}
-
-		varInt |= (0x80 << 16);
-		varInt |= (value << 24);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianInt(varInt);
-			position -= 0;
-			return 4;
-		}
-
-		varInt |= (0x80 << 24);
-		long varLong = varInt | (((long)value) << 32);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianLong(varLong);
-			position -= 3;
-			return 5;
-		}
-
-		varLong |= (0x80 << 32);
-		varLong = varInt | (((long)value) << 40);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianLong(varLong);
-			position -= 2;
-			return 6;
-		}
-
-		varLong |= (0x80 << 40);
-		varLong = varInt | (((long)value) << 48);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianLong(varLong);
-			position -= 1;
-			return 7;
-		}
-
-		varLong |= (0x80 << 48);
-		varLong = varInt | (((long)value) << 56);
-
-		value >>>= 7;
-
-		if (value == 0) {
-			writeLittleEndianLong(varLong);
-// position -= 1;
-			return 8;
-		}
-
-		varLong |= (0x80 << 56);
-		writeLittleEndianLong(varLong);
-		write((byte)(value >>> 7));
-		return 9;
+		int length = varIntLength[Long.numberOfLeadingZeros(v)];
+		if (length > 8) return super.writeVarLong(value, optimizePositive); // 9 bytes.
+		long word = v & 0x7F | (v << 1 & 0x7F00) | (v << 2 & 0x7F0000) | (v << 3 & 0x7F000000L) | (v << 4 & 0x7F00000000L)
+			| (v << 5 & 0x7F0000000000L) | (v << 6 & 0x7F000000000000L) | (v << 7 & 0x7F00000000000000L);
+		word |= 0x8080808080808080L & ((1L << ((length - 1) << 3)) - 1); // Continuation bits of all but the last byte.
+		unsafe().putLong(buffer, byteArrayBaseOffset + position, isLittleEndian ? word : Util.swapLong(word));
+		position += length;
+		return length;
 	}
 
 	// Methods implementing bulk operations on arrays of primitive types
@@ -19,73 +19,161 @@
 
 package com.esotericsoftware.kryo.serializers;
 
+import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.IdentityMap;
+import com.esotericsoftware.kryo.util.IdentityObjectIntMap;
+import com.esotericsoftware.kryo.util.ObjectMap;
 
 /** Serializer for Java8 closures. To serialize closures, use:
  * <p>
  * <code>
- * kryo.register(java.lang.invoke.SerializedLambda.class);<br>
- * kryo.register(Closure.class, new ClosureSerializer());</code>
+ * kryo.register(ClosureSerializer.Closure.class, new ClosureSerializer());</code>
+ * <p>
+ * The first time a lambda class is encountered in an object graph, the capturing class and the functional interface and
+ * implementation method descriptors are written. After that only a varint reference to them is written. The captured arguments
+ * always follow. The writeReplace and $deserializeLambda$ methods are looked up once per class and cached.
  * @author Roman Levenstein <romixlev@gmail.com> */
 public class ClosureSerializer extends Serializer {
+	static private final Object WRITE_IDS = new Object(), READ_DESCRIPTORS = new Object();
 
-	private static Method readResolve;
-	private static Class serializedLambda;
-	static {
-		try {
-			serializedLambda = Class.forName("java.lang.invoke.SerializedLambda");
-			readResolve = serializedLambda.getDeclaredMethod("readResolve");
-			readResolve.setAccessible(true);
-		} catch (Exception e) {
-			throw new RuntimeException("Could not obtain SerializedLambda or its methods via reflection", e);
-		}
-	}
+	private final IdentityMap<Class, Method> writeReplaceMethods = new IdentityMap();
+	private final IdentityMap<Class, Method> deserializeMethods = new IdentityMap();
+	private final ObjectMap<String, Class> capturingClasses = new ObjectMap();
 
 	public ClosureSerializer () {
 	}
 
 	public void write (Kryo kryo, Output output, Object object) {
-		try {
-			Class type = object.getClass();
-			Method writeReplace = type.getDeclaredMethod("writeReplace");
-			writeReplace.setAccessible(true);
-			Object replacement = writeReplace.invoke(object);
-			if (serializedLambda.isInstance(replacement)) {
-				// Serialize the representation of this lambda
-				kryo.writeObject(output, replacement);
-			} else
-				throw new RuntimeException("Could not serialize lambda");
-		} catch (Exception e) {
-			throw new RuntimeException("Could not serialize lambda", e);
+		SerializedLambda lambda = writeReplace(object);
+		IdentityObjectIntMap<Class> ids = (IdentityObjectIntMap)kryo.getGraphContext().get(WRITE_IDS);
+		if (ids == null) {
+			ids = new IdentityObjectIntMap();
+			kryo.getGraphContext().put(WRITE_IDS, ids);
 		}
+		Class type = object.getClass();
+		int id = ids.get(type, -1);
+		if (id != -1)
+			output.writeVarInt(id + 1, true);
+		else {
+			// Only write the descriptor the first time encountered in object graph.
+			ids.put(type, ids.size);
+			output.writeVarInt(0, true);
+			output.writeString(lambda.getCapturingClass());
+			output.writeString(lambda.getFunctionalInterfaceClass());
+			output.writeString(lambda.getFunctionalInterfaceMethodName());
+			output.writeString(lambda.getFunctionalInterfaceMethodSignature());
+			output.writeVarInt(lambda.getImplMethodKind(), true);
+			output.writeString(lambda.getImplClass());
+			output.writeString(lambda.getImplMethodName());
+			output.writeString(lambda.getImplMethodSignature());
+			output.writeString(lambda.getInstantiatedMethodType());
+		}
+		int count = lambda.getCapturedArgCount();
+		output.writeVarInt(count, true);
+		for (int i = 0; i < count; i++)
+			kryo.writeClassAndObject(output, lambda.getCapturedArg(i));
 	}
 
 	public Object read (Kryo kryo, Input input, Class type) {
-		try {
-			Object object = kryo.readObject(input, serializedLambda);
-			return readResolve.invoke(object);
-		} catch (Exception e) {
-			throw new RuntimeException("Could not serialize lambda", e);
+		ArrayList<Descriptor> descriptors = (ArrayList)kryo.getGraphContext().get(READ_DESCRIPTORS);
+		if (descriptors == null) {
+			descriptors = new ArrayList();
+			kryo.getGraphContext().put(READ_DESCRIPTORS, descriptors);
+		}
+		int id = input.readVarInt(true);
+		Descriptor descriptor;
+		if (id != 0)
+			descriptor = descriptors.get(id - 1);
+		else {
+			descriptor = new Descriptor();
+			descriptor.capturingClass = capturingClass(kryo, input.readString());
+			descriptor.functionalInterfaceClass = input.readString();
+			descriptor.functionalInterfaceMethodName = input.readString();
+			descriptor.functionalInterfaceMethodSignature = input.readString();
+			descriptor.implMethodKind = input.readVarInt(true);
+			descriptor.implClass = input.readString();
+			descriptor.implMethodName = input.readString();
+			descriptor.implMethodSignature = input.readString();
+			descriptor.instantiatedMethodType = input.readString();
+			descriptors.add(descriptor);
 		}
+		Object[] capturedArgs = new Object[input.readVarInt(true)];
+		for (int i = 0, n = capturedArgs.length; i < n; i++)
+			capturedArgs[i] = kryo.readClassAndObject(input);
+		SerializedLambda lambda = new SerializedLambda(descriptor.capturingClass, descriptor.functionalInterfaceClass,
+			descriptor.functionalInterfaceMethodName, descriptor.functionalInterfaceMethodSignature, descriptor.implMethodKind,
+			descriptor.implClass, descriptor.implMethodName, descriptor.implMethodSignature, descriptor.instantiatedMethodType,
+			capturedArgs);
+		return deserialize(descriptor.capturingClass, lambda);
 	}
 
 	public Object copy (Kryo kryo, Object original) {
+		SerializedLambda lambda = writeReplace(original);
+		return deserialize(capturingClass(kryo, lambda.getCapturingClass()), lambda);
+	}
+
+	private SerializedLambda writeReplace (Object object) {
+		Class type = object.getClass();
+		Method writeReplace = writeReplaceMethods.get(type);
 		try {
-			Class type = original.getClass();
-			Method writeReplace = type.getDeclaredMethod("writeReplace");
-			writeReplace.setAccessible(true);
-			Object replacement = writeReplace.invoke(original);
-			if (serializedLambda.isInstance(replacement)) {
-				return readResolve.invoke(replacement);
-			} else
-				throw new RuntimeException("Could not serialize lambda");
-		} catch (Exception e) {
-			throw new RuntimeException("Could not serialize lambda", e);
+			if (writeReplace == null) {
+				writeReplace = type.getDeclaredMethod("writeReplace");
+				writeReplace.setAccessible(true);
+				writeReplaceMethods.put(type, writeReplace);
+			}
+			Object replacement = writeReplace.invoke(object);
+			if (replacement instanceof SerializedLambda) return (SerializedLambda)replacement;
+		} catch (Exception ex) {
+			throw new KryoException("Could not serialize lambda: " + type.getName(), ex);
 		}
+		throw new KryoException("Could not serialize lambda: " + type.getName());
+	}
+
+	/** Calls the capturing class' $deserializeLambda$ method directly, rather than through SerializedLambda#readResolve which
+	 * looks it up every time. */
+	private Object deserialize (Class capturingClass, SerializedLambda lambda) {
+		Method deserialize = deserializeMethods.get(capturingClass);
+		try {
+			if (deserialize == null) {
+				deserialize = capturingClass.getDeclaredMethod("$deserializeLambda$", SerializedLambda.class);
+				deserialize.setAccessible(true);
+				deserializeMethods.put(capturingClass, deserialize);
+			}
+			return deserialize.invoke(null, lambda);
+		} catch (Exception ex) {
+			throw new KryoException("Could not deserialize lambda: " + lambda.getImplClass() + "." + lambda.getImplMethodName(), ex);
+		}
+	}
+
+	private Class capturingClass (Kryo kryo, String name) {
+		Class type = capturingClasses.get(name);
+		if (type == null) {
+			try {
+				type = Class.forName(name.replace('/', '.'), false, kryo.getClassLoader());
+			} catch (ClassNotFoundException ex) {
+				throw new KryoException("Unable to find lambda capturing class: " + name, ex);
+			}
+			capturingClasses.put(name, type);
+		}
+		return type;
+	}
+
+	/** Used to register {@link ClosureSerializer} for all closures, which have no class that can be named. */
+	static public class Closure {
+	}
+
+	static private class Descriptor {
+		Class capturingClass;
+		String functionalInterfaceClass, functionalInterfaceMethodName, functionalInterfaceMethodSignature;
+		int implMethodKind;
+		String implClass, implMethodName, implMethodSignature, instantiatedMethodType;
 	}
 }
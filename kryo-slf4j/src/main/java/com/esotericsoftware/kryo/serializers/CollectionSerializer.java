@@ -41,7 +41,6 @@ public class CollectionSerializer extends Serializer<Collection> {
 	private boolean elementsCanBeNull = true;
 	private Serializer serializer;
 	private Class elementClass;
-	private Class genericType;
 
 	public CollectionSerializer () {
 	}
@@ -73,19 +72,28 @@ public class CollectionSerializer extends Serializer<Collection> {
 	}
 
 	public void setGenerics (Kryo kryo, Class[] generics) {
-		genericType = null;
-		if (generics != null && generics.length > 0) {
-			if (kryo.isFinal(generics[0])) genericType = generics[0];
-		}
+		kryo.setGenerics(this, generics);
+	}
+
+	/** Returns the element type from the generic types, if it is final. */
+	static private Class genericType (Kryo kryo, Class[] generics) {
+		if (generics != null && generics.length > 0 && generics[0] != null && kryo.isFinal(generics[0])) return generics[0];
+		return null;
 	}
 
 	public void write (Kryo kryo, Output output, Collection collection) {
+		writeElements(kryo, output, collection, kryo.removeGenerics(this));
+	}
+
+	/** Writes the length and the elements of the collection.
+	 * @param generics The generic types removed from the Kryo for this serializer, may be null. */
+	void writeElements (Kryo kryo, Output output, Collection collection, Class[] generics) {
 		int length = collection.size();
 		output.writeVarInt(length, true);
 		Serializer serializer = this.serializer;
+		Class genericType = genericType(kryo, generics);
 		if (genericType != null) {
 			if (serializer == null) serializer = kryo.getSerializer(genericType);
-			genericType = null;
 		}
 		if (serializer != null) {
 			if (elementsCanBeNull) {
@@ -108,10 +116,20 @@ public class CollectionSerializer extends Serializer<Collection> {
 	}
 
 	public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+		// Removed before create, which may read other objects.
+		Class[] generics = kryo.removeGenerics(this);
 		Collection collection = create(kryo, input, type);
 		kryo.reference(collection);
-		int length = input.readVarInt(true);
+		readElements(kryo, input, collection, input.readVarInt(true), generics);
+		return collection;
+	}
+
+	/** Reads the elements written by {@link #writeElements(Kryo, Output, Collection, Class[])} and adds them to the collection.
+	 * @param length The length, which has already been read.
+	 * @param generics The generic types removed from the Kryo for this serializer, may be null. */
+	void readElements (Kryo kryo, Input input, Collection collection, int length, Class[] generics) {
 		if (collection instanceof ArrayList) ((ArrayList)collection).ensureCapacity(length);
+		Class genericType = genericType(kryo, generics);
 		Class elementClass = this.elementClass;
 		Serializer serializer = this.serializer;
 		if (genericType != null) {
@@ -119,7 +137,6 @@ public class CollectionSerializer extends Serializer<Collection> {
 				elementClass = genericType;
 				serializer = kryo.getSerializer(genericType);
 			}
-			genericType = null;
 		}
 		if (serializer != null) {
 			if (elementsCanBeNull) {
@@ -133,7 +150,6 @@ public class CollectionSerializer extends Serializer<Collection> {
 			for (int i = 0; i < length; i++)
 				collection.add(kryo.readClassAndObject(input));
 		}
-		return collection;
 	}
 
 	/** Used by {@link #copy(Kryo, Collection)} to create the new object. This can be overridden to customize object creation, eg to
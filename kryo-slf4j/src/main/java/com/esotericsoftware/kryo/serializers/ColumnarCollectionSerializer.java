@@ -0,0 +1,248 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.serializers;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.esotericsoftware.kryo.Generics;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.BitInput;
+import com.esotericsoftware.kryo.io.BitOutput;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorDoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorFloatArraySerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+import com.esotericsoftware.kryo.serializers.UnsafeCacheFields.UnsafeRegionField;
+
+/** Serializes collections of objects of a single class as columns: the values of a field for all elements are written together,
+ * then the values of the next field, rather than every field of one element after another. The fields are those of the
+ * {@link FieldSerializer} registered for the element class, followed by its transient fields if it
+ * {@link FieldSerializer#setSerializeTransient(boolean) serializes them}.
+ * <p>
+ * Primitive columns are bulk encoded: int and long columns as bit packed deltas (see {@link Output#writeDeltaInts(int[])}), float
+ * and double columns XOR compressed (see {@link XorDoubleArraySerializer}) and boolean columns as 1 bit each. This is much smaller
+ * than {@link CollectionSerializer} for lists of similar records, such as market data snapshots. Other fields are written as
+ * {@link FieldSerializer} writes them.
+ * <p>
+ * Elements must not be null and must be exactly of the element class. Elements are not tracked as references, so field values
+ * that refer to an element of the collection are written as separate objects. */
+public class ColumnarCollectionSerializer extends Serializer<Collection> {
+	private final Class elementClass;
+
+	public ColumnarCollectionSerializer (Class elementClass) {
+		if (elementClass == null) throw new IllegalArgumentException("elementClass cannot be null.");
+		this.elementClass = elementClass;
+	}
+
+	public Class getElementClass () {
+		return elementClass;
+	}
+
+	public void write (Kryo kryo, Output output, Collection collection) {
+		Object[] elements = collection.toArray();
+		for (Object element : elements) {
+			if (element == null) throw new KryoException("Element cannot be null.");
+			if (element.getClass() != elementClass)
+				throw new KryoException("Element must be a " + elementClass.getName() + ": " + element.getClass().getName());
+		}
+		output.writeVarInt(elements.length, true);
+
+		FieldSerializer serializer = getFieldSerializer(kryo);
+		Generics genericsScope = serializer.getGenericsScope();
+		if (genericsScope != null) kryo.pushGenericsScope(elementClass, genericsScope);
+		CachedField[] fields = serializer.getFields();
+		for (int i = 0, n = fields.length; i < n; i++)
+			writeColumn(output, fields[i], elements);
+		if (serializer.getSerializeTransient()) {
+			fields = serializer.getTransientFields();
+			for (int i = 0, n = fields.length; i < n; i++)
+				writeColumn(output, fields[i], elements);
+		}
+		if (genericsScope != null) kryo.popGenericsScope();
+	}
+
+	private void writeColumn (Output output, CachedField cachedField, Object[] elements) {
+		if (cachedField instanceof UnsafeRegionField)
+			throw new KryoException("Memory regions are not supported for columns: " + elementClass.getName());
+		Field field = cachedField.field;
+		Class type = field.getType();
+		int length = elements.length;
+		try {
+			if (type == int.class) {
+				int[] column = new int[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getInt(elements[i]);
+				output.writeDeltaInts(column);
+			} else if (type == long.class) {
+				long[] column = new long[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getLong(elements[i]);
+				output.writeDeltaLongs(column);
+			} else if (type == double.class) {
+				double[] column = new double[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getDouble(elements[i]);
+				XorDoubleArraySerializer.writeXorDoubles(output, column);
+			} else if (type == float.class) {
+				float[] column = new float[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getFloat(elements[i]);
+				XorFloatArraySerializer.writeXorFloats(output, column);
+			} else if (type == boolean.class) {
+				BitOutput bits = new BitOutput(output);
+				for (int i = 0; i < length; i++)
+					bits.writeBit(field.getBoolean(elements[i]));
+				bits.flush();
+			} else if (type == byte.class) {
+				byte[] column = new byte[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getByte(elements[i]);
+				output.writeBytes(column);
+			} else if (type == short.class) {
+				short[] column = new short[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getShort(elements[i]);
+				output.writeShorts(column);
+			} else if (type == char.class) {
+				char[] column = new char[length];
+				for (int i = 0; i < length; i++)
+					column[i] = field.getChar(elements[i]);
+				output.writeChars(column);
+			} else {
+				for (int i = 0; i < length; i++)
+					cachedField.write(output, elements[i]);
+			}
+		} catch (IllegalAccessException ex) {
+			throw new KryoException("Error accessing field: " + cachedField + " (" + elementClass.getName() + ")", ex);
+		}
+	}
+
+	/** Used by {@link #read(Kryo, Input, Class)} to create the new object. This can be overridden to customize object creation, eg
+	 * to call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
+	protected Collection create (Kryo kryo, Input input, Class<Collection> type) {
+		return kryo.newInstance(type);
+	}
+
+	public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+		Collection collection = create(kryo, input, type);
+		kryo.reference(collection);
+		int length = input.readVarInt(true);
+		if (collection instanceof ArrayList) ((ArrayList)collection).ensureCapacity(length);
+
+		FieldSerializer serializer = getFieldSerializer(kryo);
+		Object[] elements = new Object[length];
+		for (int i = 0; i < length; i++)
+			elements[i] = serializer.create(kryo, input, elementClass);
+
+		Generics genericsScope = serializer.getGenericsScope();
+		if (genericsScope != null) kryo.pushGenericsScope(elementClass, genericsScope);
+		try {
+			CachedField[] fields = serializer.getFields();
+			for (int i = 0, n = fields.length; i < n; i++)
+				readColumn(input, fields[i], elements);
+			if (serializer.getSerializeTransient()) {
+				fields = serializer.getTransientFields();
+				for (int i = 0, n = fields.length; i < n; i++)
+					readColumn(input, fields[i], elements);
+			}
+		} finally {
+			if (genericsScope != null && kryo.getGenericsScope() != null) kryo.popGenericsScope();
+		}
+
+		for (int i = 0; i < length; i++)
+			collection.add(elements[i]);
+		return collection;
+	}
+
+	private void readColumn (Input input, CachedField cachedField, Object[] elements) {
+		if (cachedField instanceof UnsafeRegionField)
+			throw new KryoException("Memory regions are not supported for columns: " + elementClass.getName());
+		Field field = cachedField.field;
+		Class type = field.getType();
+		int length = elements.length;
+		try {
+			if (type == int.class) {
+				int[] column = input.readDeltaInts(length);
+				for (int i = 0; i < length; i++)
+					field.setInt(elements[i], column[i]);
+			} else if (type == long.class) {
+				long[] column = input.readDeltaLongs(length);
+				for (int i = 0; i < length; i++)
+					field.setLong(elements[i], column[i]);
+			} else if (type == double.class) {
+				double[] column = XorDoubleArraySerializer.readXorDoubles(input, length);
+				for (int i = 0; i < length; i++)
+					field.setDouble(elements[i], column[i]);
+			} else if (type == float.class) {
+				float[] column = XorFloatArraySerializer.readXorFloats(input, length);
+				for (int i = 0; i < length; i++)
+					field.setFloat(elements[i], column[i]);
+			} else if (type == boolean.class) {
+				BitInput bits = new BitInput(input);
+				for (int i = 0; i < length; i++)
+					field.setBoolean(elements[i], bits.readBit());
+			} else if (type == byte.class) {
+				byte[] column = input.readBytes(length);
+				for (int i = 0; i < length; i++)
+					field.setByte(elements[i], column[i]);
+			} else if (type == short.class) {
+				short[] column = input.readShorts(length);
+				for (int i = 0; i < length; i++)
+					field.setShort(elements[i], column[i]);
+			} else if (type == char.class) {
+				char[] column = input.readChars(length);
+				for (int i = 0; i < length; i++)
+					field.setChar(elements[i], column[i]);
+			} else {
+				for (int i = 0; i < length; i++)
+					cachedField.read(input, elements[i]);
+			}
+		} catch (IllegalAccessException ex) {
+			throw new KryoException("Error accessing field: " + cachedField + " (" + elementClass.getName() + ")", ex);
+		}
+	}
+
+	private FieldSerializer getFieldSerializer (Kryo kryo) {
+		Serializer serializer = kryo.getSerializer(elementClass);
+		if (!(serializer instanceof FieldSerializer)) {
+			throw new KryoException("The serializer for " + elementClass.getName() + " must be a FieldSerializer: "
+				+ serializer.getClass().getName());
+		}
+		return (FieldSerializer)serializer;
+	}
+
+	/** Used by {@link #copy(Kryo, Collection)} to create the new object. This can be overridden to customize object creation, eg to
+	 * call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
+	protected Collection createCopy (Kryo kryo, Collection original) {
+		return kryo.newInstance(original.getClass());
+	}
+
+	public Collection copy (Kryo kryo, Collection original) {
+		Collection copy = createCopy(kryo, original);
+		kryo.reference(copy);
+		for (Object element : original)
+			copy.add(kryo.copy(element));
+		return copy;
+	}
+}
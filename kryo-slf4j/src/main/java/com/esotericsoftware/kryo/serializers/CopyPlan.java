@@ -0,0 +1,231 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import java.lang.reflect.Array;
+import java.net.URI;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ObjectArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.StringArraySerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+
+/** Describes how instances of a class are deep copied. A plan is compiled once per class and cached on its {@link Registration}
+ * when {@link Kryo#setCopyPlansEnabled(boolean) copy plans} are enabled.
+ * <p>
+ * Instances of immutable types are shared and never tracked in the {@link Kryo#getOriginalToCopyMap() original to copy map}.
+ * Primitive arrays and objects with only primitive fields are copied in bulk and, as they have no child objects, tracked without
+ * the {@link Kryo#reference(Object)} handshake. {@link FieldSerializer} types copy primitive fields directly and share immutable
+ * field values without going through {@link Kryo#copy(Object)}. All other types use {@link Serializer#copy(Kryo, Object)}.
+ * @see Kryo#setCopyPlansEnabled(boolean) */
+public abstract class CopyPlan {
+	static final CopyPlan immutable = new ImmutablePlan();
+
+	/** If true, the original is used as the copy and no identity tracking is done. */
+	public boolean isImmutable () {
+		return false;
+	}
+
+	/** If true, the copy has no child objects that may refer back to it, so {@link Kryo#reference(Object)} does not need to be
+	 * called before the copy is complete. */
+	public boolean isLeaf () {
+		return false;
+	}
+
+	/** Returns a copy of the specified object. The original is never null. */
+	abstract public Object copy (Kryo kryo, Object original);
+
+	/** Returns the plan cached on the registration, compiling it first if necessary. */
+	static public CopyPlan getPlan (Kryo kryo, Registration registration) {
+		CopyPlan plan = registration.getCopyPlan();
+		if (plan == null) {
+			plan = compile(kryo, registration);
+			registration.setCopyPlan(plan);
+		}
+		return plan;
+	}
+
+	/** Returns a new plan for the type of the specified registration. */
+	static public CopyPlan compile (Kryo kryo, Registration registration) {
+		Class type = registration.getType();
+		Serializer serializer = registration.getSerializer();
+		if (serializer.isImmutable() || isImmutable(type)) return immutable;
+
+		if (type.isArray()) {
+			if (type.getComponentType().isPrimitive() && isDefaultArraySerializer(serializer)) {
+				if (FieldSerializer.unsafeAvailable) return UnsafeCopyPlans.newPrimitiveArrayPlan(type);
+				return new PrimitiveArrayPlan();
+			}
+			return new SerializerPlan(serializer);
+		}
+
+		if (serializer instanceof FieldSerializer && !overridesCopy(serializer.getClass())) {
+			FieldSerializer fieldSerializer = (FieldSerializer)serializer;
+			if (FieldSerializer.unsafeAvailable) {
+				CopyPlan plan = UnsafeCopyPlans.newPrimitiveObjectPlan(fieldSerializer);
+				if (plan != null) return plan;
+			}
+			return new FieldPlan(fieldSerializer);
+		}
+		return new SerializerPlan(serializer);
+	}
+
+	/** Returns true for JDK types known to be immutable that do not have an immutable serializer by default. */
+	static boolean isImmutable (Class type) {
+		return type == UUID.class || type == URI.class || type == Pattern.class;
+	}
+
+	static private boolean isDefaultArraySerializer (Serializer serializer) {
+		Class serializerClass = serializer.getClass();
+		return serializerClass.getEnclosingClass() == DefaultArraySerializers.class && serializerClass != ObjectArraySerializer.class
+			&& serializerClass != StringArraySerializer.class;
+	}
+
+	static private boolean overridesCopy (Class serializerClass) {
+		try {
+			return serializerClass.getMethod("copy", Kryo.class, Object.class).getDeclaringClass() != FieldSerializer.class;
+		} catch (NoSuchMethodException ex) {
+			return true;
+		}
+	}
+
+	static final class ImmutablePlan extends CopyPlan {
+		public boolean isImmutable () {
+			return true;
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			return original;
+		}
+	}
+
+	static final class SerializerPlan extends CopyPlan {
+		private final Serializer serializer;
+
+		SerializerPlan (Serializer serializer) {
+			this.serializer = serializer;
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			return serializer.copy(kryo, original);
+		}
+	}
+
+	/** Copies primitive arrays with {@link System#arraycopy(Object, int, Object, int, int)} when Unsafe is unavailable. */
+	static final class PrimitiveArrayPlan extends CopyPlan {
+		public boolean isLeaf () {
+			return true;
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			int length = Array.getLength(original);
+			Object copy = Array.newInstance(original.getClass().getComponentType(), length);
+			System.arraycopy(original, 0, copy, 0, length);
+			return copy;
+		}
+	}
+
+	/** Copies primitive fields directly and object fields through {@link Kryo#copy(Object)}, except field values that are immutable,
+	 * which are shared. The fields are collected again if the serializer's cached fields are rebuilt. */
+	static final class FieldPlan extends CopyPlan {
+		private final FieldSerializer serializer;
+		private CachedField[] fields, transientFields;
+		private CachedField[] directFields;
+		private ObjectField[] objectFields;
+		private boolean[] shareValues;
+
+		FieldPlan (FieldSerializer serializer) {
+			this.serializer = serializer;
+		}
+
+		private void collectFields (Kryo kryo) {
+			fields = serializer.getFields();
+			transientFields = serializer.getTransientFields();
+			int directCount = 0, objectCount = 0;
+			CachedField[] all = new CachedField[fields.length + (serializer.getCopyTransient() ? transientFields.length : 0)];
+			System.arraycopy(fields, 0, all, 0, fields.length);
+			if (all.length > fields.length) System.arraycopy(transientFields, 0, all, fields.length, transientFields.length);
+			for (int i = 0, n = all.length; i < n; i++) {
+				if (isDirect(all[i]))
+					directCount++;
+				else
+					objectCount++;
+			}
+			directFields = new CachedField[directCount];
+			objectFields = new ObjectField[objectCount];
+			shareValues = new boolean[objectCount];
+			directCount = 0;
+			objectCount = 0;
+			for (int i = 0, n = all.length; i < n; i++) {
+				CachedField field = all[i];
+				if (isDirect(field)) {
+					directFields[directCount++] = field;
+					continue;
+				}
+				// A final field type with an immutable plan never needs Kryo#copy.
+				if (field.valueClass != null) {
+					Registration registration = kryo.getClassResolver().getRegistration(field.valueClass);
+					shareValues[objectCount] = registration != null && getPlan(kryo, registration).isImmutable();
+				}
+				objectFields[objectCount++] = (ObjectField)field;
+			}
+		}
+
+		static private boolean isDirect (CachedField field) {
+			return !(field instanceof ObjectField) || field.field.getType().isPrimitive();
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			if (serializer.getFields() != fields || serializer.getTransientFields() != transientFields) collectFields(kryo);
+			Object copy = serializer.createCopy(kryo, original);
+			kryo.reference(copy);
+
+			CachedField[] directFields = this.directFields;
+			for (int i = 0, n = directFields.length; i < n; i++)
+				directFields[i].copy(original, copy);
+
+			ObjectField[] objectFields = this.objectFields;
+			boolean[] shareValues = this.shareValues;
+			for (int i = 0, n = objectFields.length; i < n; i++) {
+				ObjectField field = objectFields[i];
+				try {
+					Object value = field.getField(original);
+					if (value != null && !shareValues[i]) value = kryo.copy(value);
+					field.setField(copy, value);
+				} catch (IllegalAccessException ex) {
+					throw new KryoException("Error accessing field: " + field + " (" + serializer.type.getName() + ")", ex);
+				} catch (KryoException ex) {
+					ex.addTrace(field + " (" + serializer.type.getName() + ")");
+					throw ex;
+				} catch (RuntimeException runtimeEx) {
+					KryoException ex = new KryoException(runtimeEx);
+					ex.addTrace(field + " (" + serializer.type.getName() + ")");
+					throw ex;
+				}
+			}
+			return copy;
+		}
+	}
+}
@@ -28,8 +28,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.BitInput;
+import com.esotericsoftware.kryo.io.BitOutput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
@@ -148,6 +151,46 @@ public class DefaultArraySerializers{
 		}
 	}
 
+	/** Writes int arrays as bit packed zigzag deltas, which is much smaller for sorted or clustered values such as timestamps and
+	 * IDs. Not used by default, it must be registered for int[].
+	 * @see Output#writeDeltaInts(int[]) */
+	static public class DeltaIntArraySerializer extends IntArraySerializer {
+		public void write (Kryo kryo, Output output, int[] object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeDeltaInts(object);
+		}
+
+		public int[] read (Kryo kryo, Input input, Class<int[]> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readDeltaInts(length - 1);
+		}
+	}
+
+	/** Writes long arrays as bit packed zigzag deltas, which is much smaller for sorted or clustered values such as timestamps and
+	 * IDs. Not used by default, it must be registered for long[].
+	 * @see Output#writeDeltaLongs(long[]) */
+	static public class DeltaLongArraySerializer extends LongArraySerializer {
+		public void write (Kryo kryo, Output output, long[] object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			output.writeDeltaLongs(object);
+		}
+
+		public long[] read (Kryo kryo, Input input, Class<long[]> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return input.readDeltaLongs(length - 1);
+		}
+	}
+
 	static public class ShortArraySerializer extends Serializer<short[]> {
 		{
 			setAcceptsNull(true);
@@ -229,6 +272,153 @@ public class DefaultArraySerializers{
 		}
 	}
 
+	/** Writes double arrays as the XOR of each value with the previous one, storing only the bits between the leading and trailing
+	 * zeros. This is much smaller for slowly changing series such as sensor readings and prices, a repeated value takes 1 bit.
+	 * Not used by default, it must be registered for double[] or bound to a field with {@link FieldSerializer.Bind}. */
+	static public class XorDoubleArraySerializer extends DoubleArraySerializer {
+		public void write (Kryo kryo, Output output, double[] object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			writeXorDoubles(output, object);
+		}
+
+		public double[] read (Kryo kryo, Input input, Class<double[]> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return readXorDoubles(input, length - 1);
+		}
+
+		/** Writes the values without their length. */
+		static void writeXorDoubles (Output output, double[] object) {
+			int length = object.length;
+			if (length == 0) return;
+			BitOutput bits = new BitOutput(output);
+			long previous = Double.doubleToRawLongBits(object[0]);
+			bits.writeBits(previous, 64);
+			int leading = -1, trailing = 0;
+			for (int i = 1; i < length; i++) {
+				long value = Double.doubleToRawLongBits(object[i]);
+				long xor = value ^ previous;
+				previous = value;
+				if (xor == 0) {
+					bits.writeBits(0, 1);
+					continue;
+				}
+				int zeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+				int trailingZeros = Long.numberOfTrailingZeros(xor);
+				if (leading != -1 && zeros >= leading && trailingZeros >= trailing) {
+					// The changed bits fit in the previous window.
+					bits.writeBits(2, 2);
+				} else {
+					leading = zeros;
+					trailing = trailingZeros;
+					bits.writeBits(3, 2);
+					bits.writeBits(leading, 5);
+					bits.writeBits(63 - leading - trailing, 6);
+				}
+				bits.writeBits(xor >>> trailing, 64 - leading - trailing);
+			}
+			bits.flush();
+		}
+
+		static double[] readXorDoubles (Input input, int length) {
+			double[] array = new double[length];
+			if (length == 0) return array;
+			BitInput bits = new BitInput(input);
+			long value = bits.readBits(64);
+			array[0] = Double.longBitsToDouble(value);
+			int leading = 0, trailing = 0;
+			for (int i = 1; i < length; i++) {
+				if (bits.readBit()) {
+					if (bits.readBit()) {
+						leading = (int)bits.readBits(5);
+						trailing = 63 - leading - (int)bits.readBits(6);
+						if (trailing < 0) throw new KryoException("Invalid XOR window: " + leading + ", " + trailing);
+					}
+					value ^= bits.readBits(64 - leading - trailing) << trailing;
+				}
+				array[i] = Double.longBitsToDouble(value);
+			}
+			return array;
+		}
+	}
+
+	/** Writes float arrays as the XOR of each value with the previous one, storing only the bits between the leading and trailing
+	 * zeros. Not used by default, it must be registered for float[] or bound to a field with {@link FieldSerializer.Bind}.
+	 * @see XorDoubleArraySerializer */
+	static public class XorFloatArraySerializer extends FloatArraySerializer {
+		public void write (Kryo kryo, Output output, float[] object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			output.writeVarInt(object.length + 1, true);
+			writeXorFloats(output, object);
+		}
+
+		public float[] read (Kryo kryo, Input input, Class<float[]> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			return readXorFloats(input, length - 1);
+		}
+
+		/** Writes the values without their length. */
+		static void writeXorFloats (Output output, float[] object) {
+			int length = object.length;
+			if (length == 0) return;
+			BitOutput bits = new BitOutput(output);
+			int previous = Float.floatToRawIntBits(object[0]);
+			bits.writeBits(previous, 32);
+			int leading = -1, trailing = 0;
+			for (int i = 1; i < length; i++) {
+				int value = Float.floatToRawIntBits(object[i]);
+				int xor = value ^ previous;
+				previous = value;
+				if (xor == 0) {
+					bits.writeBits(0, 1);
+					continue;
+				}
+				int zeros = Integer.numberOfLeadingZeros(xor);
+				int trailingZeros = Integer.numberOfTrailingZeros(xor);
+				if (leading != -1 && zeros >= leading && trailingZeros >= trailing) {
+					bits.writeBits(2, 2);
+				} else {
+					leading = zeros;
+					trailing = trailingZeros;
+					bits.writeBits(3, 2);
+					bits.writeBits(leading, 5);
+					bits.writeBits(31 - leading - trailing, 5);
+				}
+				bits.writeBits(xor >>> trailing, 32 - leading - trailing);
+			}
+			bits.flush();
+		}
+
+		static float[] readXorFloats (Input input, int length) {
+			float[] array = new float[length];
+			if (length == 0) return array;
+			BitInput bits = new BitInput(input);
+			int value = (int)bits.readBits(32);
+			array[0] = Float.intBitsToFloat(value);
+			int leading = 0, trailing = 0;
+			for (int i = 1; i < length; i++) {
+				if (bits.readBit()) {
+					if (bits.readBit()) {
+						leading = (int)bits.readBits(5);
+						trailing = 31 - leading - (int)bits.readBits(5);
+						if (trailing < 0) throw new KryoException("Invalid XOR window: " + leading + ", " + trailing);
+					}
+					value ^= (int)bits.readBits(32 - leading - trailing) << trailing;
+				}
+				array[i] = Float.intBitsToFloat(value);
+			}
+			return array;
+		}
+	}
+
 	static public class BooleanArraySerializer extends Serializer<boolean[]> {
 		{
 			setAcceptsNull(true);
@@ -260,6 +450,33 @@ public class DefaultArraySerializers{
 		}
 	}
 
+	/** Writes boolean arrays packed 8 values per byte, the first value in the lowest bit. Not used by default, it must be
+	 * registered for boolean[]. */
+	static public class PackedBooleanArraySerializer extends BooleanArraySerializer {
+		public void write (Kryo kryo, Output output, boolean[] object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			int length = object.length;
+			output.writeVarInt(length + 1, true);
+			byte[] bytes = new byte[(length + 7) >>> 3];
+			for (int i = 0; i < length; i++)
+				if (object[i]) bytes[i >>> 3] |= 1 << (i & 7);
+			output.writeBytes(bytes);
+		}
+
+		public boolean[] read (Kryo kryo, Input input, Class<boolean[]> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			boolean[] array = new boolean[--length];
+			byte[] bytes = input.readBytes((length + 7) >>> 3);
+			for (int i = 0; i < length; i++)
+				array[i] = (bytes[i >>> 3] & (1 << (i & 7))) != 0;
+			return array;
+		}
+	}
+
 	static public class StringArraySerializer extends Serializer<String[]> {
 		{
 			setAcceptsNull(true);
@@ -307,7 +524,6 @@ public class DefaultArraySerializers{
 	static public class ObjectArraySerializer extends Serializer<Object[]> {
 		private boolean elementsAreSameType;
 		private boolean elementsCanBeNull = true;
-		private Class[] generics;
 		private final Class type;
 
 		{
@@ -328,11 +544,12 @@ public class DefaultArraySerializers{
 				return;
 			}
 			output.writeVarInt(object.length + 1, true);
+			Class[] generics = kryo.removeGenerics(this);
 			Class elementClass = object.getClass().getComponentType();
 			if (elementsAreSameType || Modifier.isFinal(elementClass.getModifiers())) {
 				Serializer elementSerializer = kryo.getSerializer(elementClass);
-//				if(generics!=null) 
-					elementSerializer.setGenerics(kryo, generics);
+				// Only the first element takes the generic types, don't store them if there is none.
+				if (object.length > 0) elementSerializer.setGenerics(kryo, generics);
 				for (int i = 0, n = object.length; i < n; i++) {
 					if (elementsCanBeNull)
 						kryo.writeObjectOrNull(output, object[i], elementSerializer);
@@ -376,11 +593,12 @@ public class DefaultArraySerializers{
 			if (length == NULL) return null;
 			Object[] object = (Object[])Array.newInstance(type.getComponentType(), length - 1);
 			kryo.reference(object);
+			Class[] generics = kryo.removeGenerics(this);
 			Class elementClass = object.getClass().getComponentType();
 			if (elementsAreSameType || Modifier.isFinal(elementClass.getModifiers())) {
 				Serializer elementSerializer = kryo.getSerializer(elementClass);
-//				if(generics!=null) 
-					elementSerializer.setGenerics(kryo, generics);
+				// Only the first element takes the generic types, don't store them if there is none.
+				if (object.length > 0) elementSerializer.setGenerics(kryo, generics);
 				for (int i = 0, n = object.length; i < n; i++) {
 					if (elementsCanBeNull)
 						object[i] = kryo.readObjectOrNull(input, elementClass, elementSerializer);
@@ -426,7 +644,7 @@ public class DefaultArraySerializers{
 			final String methodName = "setGenerics : ";
 			
 			LOGGER.trace("{} setting generics for ObjectArraySerializer", methodName);
-			this.generics = generics;
+			kryo.setGenerics(this, generics);
 		}
 	}
 }
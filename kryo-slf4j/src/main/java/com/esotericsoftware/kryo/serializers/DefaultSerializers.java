@@ -21,6 +21,9 @@ package com.esotericsoftware.kryo.serializers;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -44,6 +47,7 @@ import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ByteArraySerializer;
 
 import static com.esotericsoftware.kryo.Kryo.*;
 import static com.esotericsoftware.kryo.util.Util.*;
@@ -256,6 +260,65 @@ public class DefaultSerializers {
 		}
 	}
 
+	/** Writes {@link BigInteger} values that fit in 62 bits as a zigzag varlong, larger values as their two's complement bytes. A
+	 * header bit distinguishes the two, so small values are written and read without temporary arrays. Values read with the small
+	 * encoding use {@link BigInteger#valueOf(long)}, which returns the cached constants such as {@link BigInteger#ZERO} and
+	 * {@link BigInteger#ONE}. Not used by default, it must be registered. The format differs from {@link BigIntegerSerializer}. */
+	static public class CompactBigIntegerSerializer extends BigIntegerSerializer {
+		public void write (Kryo kryo, Output output, BigInteger object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			writeBigInteger(output, object);
+		}
+
+		public BigInteger read (Kryo kryo, Input input, Class<BigInteger> type) {
+			long header = input.readVarLong(true);
+			if (header == NULL) return null;
+			if (type != BigInteger.class && type != null) {
+				// For subclasses, use reflection
+				byte[] bytes;
+				if ((header & 1) != 0)
+					bytes = BigInteger.valueOf(small(header)).toByteArray();
+				else
+					bytes = input.readBytes((int)(header >>> 1));
+				try {
+					Constructor<BigInteger> constructor = type.getConstructor(byte[].class);
+					if (!constructor.isAccessible()) {
+						try {
+							constructor.setAccessible(true);
+						}
+						catch (SecurityException se) {}
+					}
+					return constructor.newInstance(bytes);
+				} catch (Exception ex) {
+					throw new KryoException(ex);
+				}
+			}
+			if ((header & 1) != 0) return BigInteger.valueOf(small(header));
+			return new BigInteger(input.readBytes((int)(header >>> 1)));
+		}
+
+		/** Writes the header for a non-null value, followed by the bytes for a large value. The header is never {@link Kryo#NULL}. */
+		static void writeBigInteger (Output output, BigInteger value) {
+			if (value.bitLength() <= 62) {
+				long small = value.longValue();
+				output.writeVarLong((((small << 1) ^ (small >> 63)) << 1) | 1, true);
+				return;
+			}
+			byte[] bytes = value.toByteArray();
+			output.writeVarLong((long)bytes.length << 1, true);
+			output.writeBytes(bytes);
+		}
+
+		/** Returns the value of a header that has the small bit set. */
+		static long small (long header) {
+			long zigzag = header >>> 1;
+			return (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+	}
+
 	/** Serializer for {@link BigDecimal} and any subclass.
 	 * @author Tumi <serverperformance@gmail.com> (enhacements) */
 	static public class BigDecimalSerializer extends Serializer<BigDecimal> {
@@ -311,6 +374,52 @@ public class DefaultSerializers {
 		}
 	}
 
+	/** Writes {@link BigDecimal} values with the unscaled value written like {@link CompactBigIntegerSerializer} does, followed by
+	 * the scale. Values with a small unscaled value are read with {@link BigDecimal#valueOf(long, int)}, which returns the cached
+	 * constants such as {@link BigDecimal#ZERO} and {@link BigDecimal#ONE}. Not used by default, it must be registered. The format
+	 * differs from {@link BigDecimalSerializer}. */
+	static public class CompactBigDecimalSerializer extends BigDecimalSerializer {
+		public void write (Kryo kryo, Output output, BigDecimal object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			CompactBigIntegerSerializer.writeBigInteger(output, object.unscaledValue());
+			output.writeInt(object.scale(), false);
+		}
+
+		public BigDecimal read (Kryo kryo, Input input, Class<BigDecimal> type) {
+			long header = input.readVarLong(true);
+			if (header == NULL) return null;
+			if ((header & 1) != 0) {
+				long unscaledValue = CompactBigIntegerSerializer.small(header);
+				int scale = input.readInt(false);
+				if (type == BigDecimal.class || type == null) return BigDecimal.valueOf(unscaledValue, scale);
+				return newInstance(type, BigInteger.valueOf(unscaledValue), scale);
+			}
+			BigInteger unscaledValue = new BigInteger(input.readBytes((int)(header >>> 1)));
+			int scale = input.readInt(false);
+			if (type == BigDecimal.class || type == null) return new BigDecimal(unscaledValue, scale);
+			return newInstance(type, unscaledValue, scale);
+		}
+
+		private BigDecimal newInstance (Class<BigDecimal> type, BigInteger unscaledValue, int scale) {
+			// For subclasses, use reflection
+			try {
+				Constructor<BigDecimal> constructor = type.getConstructor(BigInteger.class, int.class);
+				if (!constructor.isAccessible()) {
+					try {
+						constructor.setAccessible(true);
+					}
+					catch (SecurityException se) {}
+				}
+				return constructor.newInstance(unscaledValue, scale);
+			} catch (Exception ex) {
+				throw new KryoException(ex);
+			}
+		}
+	}
+
 	static public class ClassSerializer extends Serializer<Class> {
 		{
 			setImmutable(true);
@@ -442,6 +551,49 @@ public class DefaultSerializers {
 		}
 	}
 
+	/** Writes an EnumSet as a bitmask of the element ordinals, trimmed after the highest ordinal in the set. Not used by default,
+	 * it must be registered for EnumSet. */
+	static public class PackedEnumSetSerializer extends EnumSetSerializer {
+		public void write (Kryo kryo, Output output, EnumSet object) {
+			Class enumType;
+			if (object.isEmpty()) {
+				EnumSet tmp = EnumSet.complementOf(object);
+				if (tmp.isEmpty()) throw new KryoException("An EnumSet must have a defined Enum to be serialized.");
+				enumType = ((Enum)tmp.iterator().next()).getDeclaringClass();
+			} else
+				enumType = ((Enum)object.iterator().next()).getDeclaringClass();
+			kryo.writeClass(output, enumType);
+			int max = -1;
+			for (Object element : object)
+				max = Math.max(max, ((Enum)element).ordinal());
+			byte[] bytes = new byte[(max + 8) >>> 3];
+			for (Object element : object) {
+				int ordinal = ((Enum)element).ordinal();
+				bytes[ordinal >>> 3] |= 1 << (ordinal & 7);
+			}
+			output.writeVarInt(bytes.length, true);
+			output.writeBytes(bytes);
+		}
+
+		public EnumSet read (Kryo kryo, Input input, Class<EnumSet> type) {
+			Class enumType = kryo.readClass(input).getType();
+			EnumSet object = EnumSet.noneOf(enumType);
+			Object[] constants = enumType.getEnumConstants();
+			byte[] bytes = input.readBytes(input.readVarInt(true));
+			for (int i = 0, n = bytes.length; i < n; i++) {
+				int bits = bytes[i] & 0xFF;
+				while (bits != 0) {
+					int ordinal = (i << 3) + Integer.numberOfTrailingZeros(bits);
+					if (ordinal >= constants.length)
+						throw new KryoException("Invalid ordinal for enum \"" + enumType.getName() + "\": " + ordinal);
+					object.add(constants[ordinal]);
+					bits &= bits - 1;
+				}
+			}
+			return object;
+		}
+	}
+
 	/** @author <a href="mailto:martin.grotzke@javakaffee.de">Martin Grotzke</a> */
 	static public class CurrencySerializer extends Serializer<Currency> {
 		{
@@ -669,7 +821,10 @@ public class DefaultSerializers {
 	static public class TreeMapSerializer extends MapSerializer {
 		public void write (Kryo kryo, Output output, Map map) {
 			TreeMap treeMap = (TreeMap)map;
+			// Writing the comparator may set generics for other serializers, so keep ours until super.write.
+			Class[] generics = kryo.removeGenerics(this);
 			kryo.writeClassAndObject(output, treeMap.comparator());
+			kryo.setGenerics(this, generics);
 			super.write(kryo, output, map);
 		}
 
@@ -706,7 +861,10 @@ public class DefaultSerializers {
 	static public class TreeSetSerializer extends CollectionSerializer {
 		public void write (Kryo kryo, Output output, Collection collection) {
 			TreeSet treeSet = (TreeSet)collection;
+			// Writing the comparator may set generics for other serializers, so keep ours until super.write.
+			Class[] generics = kryo.removeGenerics(this);
 			kryo.writeClassAndObject(output, treeSet.comparator());
+			kryo.setGenerics(this, generics);
 			super.write(kryo, output, collection);
 		}
 
@@ -836,4 +994,88 @@ public class DefaultSerializers {
 			}
 		}
 	}
+
+	/** Serializer for {@link ByteBuffer} and any subclass, including direct and memory mapped buffers. The bytes from the buffer's
+	 * position to its limit are written without a temporary array, in the same format as {@link ByteArraySerializer}. Heap buffers
+	 * are read as heap buffers, direct and mapped buffers as direct buffers. The byte order is not written.
+	 * @see #setZeroCopy(boolean) */
+	static public class ByteBufferSerializer extends Serializer<ByteBuffer> {
+		private boolean zeroCopy;
+
+		{
+			setAcceptsNull(true);
+		}
+
+		/** @param zeroCopy If true, buffers are read as read-only views of the input's bytes rather than as copies. Such a view is only
+		 *           valid until the input's buffer changes, see {@link Input#readByteBuffer(int)}. Default is false. */
+		public void setZeroCopy (boolean zeroCopy) {
+			this.zeroCopy = zeroCopy;
+		}
+
+		public void write (Kryo kryo, Output output, ByteBuffer object) {
+			if (object == null) {
+				output.writeVarInt(NULL, true);
+				return;
+			}
+			output.writeVarInt(object.remaining() + 1, true);
+			output.writeBytes(object);
+		}
+
+		public ByteBuffer read (Kryo kryo, Input input, Class<ByteBuffer> type) {
+			int length = input.readVarInt(true);
+			if (length == NULL) return null;
+			if (zeroCopy) return input.readByteBuffer(length - 1);
+			ByteBuffer buffer;
+			// Direct buffers are MappedByteBuffers.
+			if (MappedByteBuffer.class.isAssignableFrom(type))
+				buffer = ByteBuffer.allocateDirect(length - 1);
+			else
+				buffer = ByteBuffer.allocate(length - 1);
+			input.readBytes(buffer);
+			buffer.flip();
+			return buffer;
+		}
+
+		public ByteBuffer copy (Kryo kryo, ByteBuffer original) {
+			int length = original.remaining();
+			ByteBuffer copy = original.isDirect() ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+			copy.put(original.duplicate());
+			copy.flip();
+			copy.order(original.order());
+			return copy;
+		}
+	}
+
+	/** Serializer for {@link BitSet}. The set is written as the number of 64-bit words up to its highest set bit, followed by the
+	 * words. */
+	static public class BitSetSerializer extends Serializer<BitSet> {
+		public void write (Kryo kryo, Output output, BitSet object) {
+			long[] words = new long[(object.length() + 63) >>> 6];
+			for (int i = object.nextSetBit(0); i >= 0; i = object.nextSetBit(i + 1))
+				words[i >>> 6] |= 1L << i;
+			output.writeVarInt(words.length, true);
+			output.writeLongs(words);
+		}
+
+		public BitSet read (Kryo kryo, Input input, Class<BitSet> type) {
+			long[] words = input.readLongs(input.readVarInt(true));
+			BitSet object = new BitSet(words.length << 6);
+			for (int i = 0, n = words.length; i < n; i++) {
+				long word = words[i];
+				if (word == -1L) {
+					object.set(i << 6, (i + 1) << 6);
+					continue;
+				}
+				while (word != 0) {
+					object.set((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return object;
+		}
+
+		public BitSet copy (Kryo kryo, BitSet original) {
+			return (BitSet)original.clone();
+		}
+	}
 }
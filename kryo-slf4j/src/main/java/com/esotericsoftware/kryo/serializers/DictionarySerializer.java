@@ -0,0 +1,127 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.serializers;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/** Wraps a serializer for an immutable type, such as String, and replaces values that were already written with a small ID. The
+ * IDs are kept across object graphs, so values repeated in every message of a stream cost 1 or 2 bytes after they have been
+ * written once. The values must implement equals and hashCode.
+ * <p>
+ * The dictionary is stored in the {@link Kryo#getContext() context}, separately for writing and reading. It is not cleared by
+ * {@link Kryo#reset()}, so the Kryo instance writing a stream and the Kryo instance reading it must process the same objects in
+ * the same order, eg one Kryo per connection and direction. When the dictionary is full, the least recently used value is
+ * evicted. Both ends evict the same value, so they stay in sync. Call {@link #reset(Kryo)} on both ends to start over, eg when
+ * reconnecting.
+ * 
+ * <pre>
+ * kryo.register(String.class, new DictionarySerializer(new StringSerializer(), 1024));
+ * </pre> */
+public class DictionarySerializer<T> extends Serializer<T> {
+	private final Serializer<T> serializer;
+	private final int capacity;
+
+	/** @param serializer Reads and writes values that are not in the dictionary.
+	 * @param capacity The maximum number of values in the dictionary. */
+	public DictionarySerializer (Serializer<T> serializer, int capacity) {
+		if (serializer == null) throw new IllegalArgumentException("serializer cannot be null.");
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+		this.serializer = serializer;
+		this.capacity = capacity;
+		setAcceptsNull(serializer.getAcceptsNull());
+		setImmutable(serializer.isImmutable());
+	}
+
+	public void write (Kryo kryo, Output output, T object) {
+		if (object == null) {
+			output.writeVarInt(0, true);
+			serializer.write(kryo, output, object);
+			return;
+		}
+		LinkedHashMap<Object, Integer> ids = getDictionary(kryo).ids;
+		Integer id = ids.get(object);
+		if (id != null) {
+			output.writeVarInt(id, true);
+			return;
+		}
+		output.writeVarInt(0, true);
+		serializer.write(kryo, output, object);
+		// Reuse the ID of the least recently used value if the dictionary is full. Reading evicts the same value.
+		int newId = ids.size() + 1;
+		if (newId > capacity) {
+			Iterator<Integer> iter = ids.values().iterator();
+			newId = iter.next();
+			iter.remove();
+		}
+		ids.put(object, newId);
+	}
+
+	public T read (Kryo kryo, Input input, Class<T> type) {
+		LinkedHashMap<Integer, Object> values = getDictionary(kryo).values;
+		int id = input.readVarInt(true);
+		if (id != 0) {
+			Object value = values.get(id);
+			if (value == null) throw new KryoException("Value not found in dictionary: " + id);
+			return (T)value;
+		}
+		T object = serializer.read(kryo, input, type);
+		if (object != null) {
+			int newId = values.size() + 1;
+			if (newId > capacity) {
+				Iterator<Integer> iter = values.keySet().iterator();
+				newId = iter.next();
+				iter.remove();
+			}
+			values.put(newId, object);
+		}
+		return object;
+	}
+
+	public T copy (Kryo kryo, T original) {
+		return serializer.copy(kryo, original);
+	}
+
+	private Dictionary getDictionary (Kryo kryo) {
+		Dictionary dictionary = (Dictionary)kryo.getContext().get(this);
+		if (dictionary == null) {
+			dictionary = new Dictionary();
+			kryo.getContext().put(this, dictionary);
+		}
+		return dictionary;
+	}
+
+	/** Discards the values written and read by the specified Kryo. */
+	public void reset (Kryo kryo) {
+		kryo.getContext().remove(this);
+	}
+
+	static class Dictionary {
+		/** Value to ID, in least recently used order. */
+		final LinkedHashMap<Object, Integer> ids = new LinkedHashMap(16, 0.75f, true);
+		/** ID to value, in least recently used order. */
+		final LinkedHashMap<Integer, Object> values = new LinkedHashMap(16, 0.75f, true);
+	}
+}
@@ -32,6 +32,8 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -49,9 +51,7 @@ import java.lang.reflect.Method;
 public class ExternalizableSerializer extends Serializer {
 
 	 private ObjectMap<Class, JavaSerializer> javaSerializerByType;
-
-	 private KryoObjectInput objectInput = null;
-	 private KryoObjectOutput objectOutput = null;
+	 private ObjectMap<Class, Constructor> constructorByType;
 
 	 @Override
 	 public void write (Kryo kryo, Output output, Object object) {
@@ -85,7 +85,7 @@ public class ExternalizableSerializer extends Serializer {
 
 	 private Object readExternal (Kryo kryo, Input input, Class type) {
 		  try {
-				Externalizable object = (Externalizable)type.newInstance();
+				Externalizable object = (Externalizable)getConstructor(type).newInstance();
 				object.readExternal(getObjectInput(kryo, input));
 				return object;
 		  } catch (ClassCastException e) {
@@ -98,29 +98,40 @@ public class ExternalizableSerializer extends Serializer {
 				throw new KryoException(e);
 		  } catch (IllegalAccessException e) {
 				throw new KryoException(e);
+		  } catch (InvocationTargetException e) {
+				throw new KryoException(e.getCause());
 		  }
 	 }
 
-	 @SuppressWarnings("unchecked")
-	 private ObjectOutput getObjectOutput (Kryo kryo, Output output) {
-		  if (objectOutput == null) {
-				objectOutput = new KryoObjectOutput(kryo, output);
-		  } else {
-				objectOutput.setOutput(output);
+	 /**
+	  * Returns the public no-arg constructor, which the {@code Externalizable} contract requires to be used to create the object,
+	  * whatever instantiator strategy is set on the Kryo instance. The constructor is looked up once per type.
+	  */
+	 private Constructor getConstructor (Class type) {
+		  if (constructorByType == null) {
+				constructorByType = new ObjectMap<Class, Constructor>();
 		  }
 
-		  return objectOutput;
+		  Constructor constructor = constructorByType.get(type);
+		  if (constructor == null) {
+				try {
+					 constructor = type.getConstructor();
+				} catch (NoSuchMethodException e) {
+					 throw new KryoException("Class cannot be created (missing public no-arg constructor): " + type.getName());
+				}
+				constructorByType.put(type, constructor);
+		  }
+
+		  return constructor;
 	 }
 
-	 @SuppressWarnings("unchecked")
-	 private ObjectInput getObjectInput (Kryo kryo, Input input) {
-		  if (objectInput == null) {
-				objectInput = new KryoObjectInput(kryo, input);
-		  } else {
-				objectInput.setInput(input);
-		  }
+	 /** Creates an adapter per call rather than caching one, so the serializer holds no per-call state. */
+	 private ObjectOutput getObjectOutput (Kryo kryo, Output output) {
+		  return new KryoObjectOutput(kryo, output);
+	 }
 
-		  return objectInput;
+	 private ObjectInput getObjectInput (Kryo kryo, Input input) {
+		  return new KryoObjectInput(kryo, input);
 	 }
 
 	 /**
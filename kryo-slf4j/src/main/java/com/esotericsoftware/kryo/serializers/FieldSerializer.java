@@ -82,7 +82,9 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 	
 	private FieldSerializerAnnotationsUtil annotationsUtil;
 
-	/** Concrete classes passed as values for type variables */
+	/** Concrete classes passed as values for type variables. Unlike the generics of collection and map serializers, these are
+	 * kept in the serializer because the cached fields are rebuilt for them, so a FieldSerializer can't be shared between Kryo
+	 * instances. */
 	private Class[] generics;
 
 	private Generics genericsScope;
@@ -103,10 +105,14 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 	private boolean copyTransient = true;
 
 	/** If set, transient fields will be serialized */
-	private final boolean serializeTransient = false;
+	private boolean serializeTransient;
 
 	private boolean hasObjectFields = false;
 
+	private boolean iterativeChains;
+	/** A field whose type is the serialized type, eg a "next" pointer, which is written and read iteratively. May be null. */
+	private CachedField chainField;
+
 	static CachedFieldFactory asmFieldFactory;
 	static CachedFieldFactory objectFieldFactory;
 	static CachedFieldFactory unsafeFieldFactory;
@@ -287,6 +293,21 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 		}
 
 		annotationsUtil.processAnnotatedFields(this);
+		initializeChainField();
+	}
+
+	/** When {@link #setIterativeChains(boolean) iterative chains} are enabled, finds the first field whose declared type is the
+	 * serialized type. */
+	private void initializeChainField () {
+		chainField = null;
+		if (!iterativeChains) return;
+		for (int i = 0, n = fields.length; i < n; i++) {
+			CachedField cachedField = fields[i];
+			if (cachedField instanceof ObjectField && cachedField.field.getType() == type) {
+				chainField = cachedField;
+				return;
+			}
+		}
 	}
 
 	private List<Field> buildValidFieldsFromCachedFields (CachedField[] cachedFields, IntArray useAsm) {
@@ -510,6 +531,21 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 		copyTransient = setCopyTransient;
 	}
 
+	/** If true, transient fields are written after the other fields. Default is false. */
+	public void setSerializeTransient (boolean serializeTransient) {
+		this.serializeTransient = serializeTransient;
+	}
+
+	/** If true, the first field whose declared type is the serialized type, eg a "next" pointer, is treated as a chain. Objects
+	 * linked through this field are written and read in a loop rather than recursively, so long chains don't grow the stack or
+	 * hit {@link Kryo#setMaxDepth(int) max depth}. The chain field is written after all other fields, so the serialized bytes
+	 * differ from those written when this is false. Default is false. */
+	public void setIterativeChains (boolean iterativeChains) {
+		this.iterativeChains = iterativeChains;
+		LOGGER.trace("setIterativeChains : {}", iterativeChains);
+		initializeChainField();
+	}
+
 	/** This method can be called for different fields having the same type. Even though the raw type is the same, if the type is
 	 * generic, it could happen that different concrete classes are used to instantiate it. Therefore, in case of different
 	 * instantiation parameters, the fields analysis should be repeated.
@@ -531,15 +567,10 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 			kryo.pushGenericsScope(type, genericsScope);
 		}
 
-		CachedField[] fields = this.fields;
-		for (int i = 0, n = fields.length; i < n; i++)
-			fields[i].write(output, object);
-
-		// Serialize transient fields
-		if (serializeTransient) {
-			for (int i = 0, n = transientFields.length; i < n; i++)
-				transientFields[i].write(output, object);
-		}
+		if (chainField == null)
+			writeFields(output, object);
+		else
+			writeChain(kryo, output, object);
 
 		if (genericsScope != null) {
 			// Pop the scope for generics
@@ -564,15 +595,10 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 			T object = create(kryo, input, type);
 			kryo.reference(object);
 
-			CachedField[] fields = this.fields;
-			for (int i = 0, n = fields.length; i < n; i++)
-				fields[i].read(input, object);
-
-			// De-serialize transient fields
-			if (serializeTransient) {
-				for (int i = 0, n = transientFields.length; i < n; i++)
-					transientFields[i].read(input, object);
-			}
+			if (chainField == null)
+				readFields(input, object);
+			else
+				readChain(kryo, input, object);
 			return object;
 		} finally {
 			if (genericsScope != null && kryo.getGenericsScope() != null) {
@@ -582,6 +608,102 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 		}
 	}
 
+	/** Writes all fields except the chain field. */
+	private void writeFields (Output output, Object object) {
+		CachedField[] fields = this.fields;
+		CachedField chainField = this.chainField;
+		for (int i = 0, n = fields.length; i < n; i++)
+			if (fields[i] != chainField) fields[i].write(output, object);
+
+		// Serialize transient fields
+		if (serializeTransient) {
+			for (int i = 0, n = transientFields.length; i < n; i++)
+				transientFields[i].write(output, object);
+		}
+	}
+
+	/** Reads all fields except the chain field. */
+	private void readFields (Input input, Object object) {
+		CachedField[] fields = this.fields;
+		CachedField chainField = this.chainField;
+		for (int i = 0, n = fields.length; i < n; i++)
+			if (fields[i] != chainField) fields[i].read(input, object);
+
+		// De-serialize transient fields
+		if (serializeTransient) {
+			for (int i = 0, n = transientFields.length; i < n; i++)
+				transientFields[i].read(input, object);
+		}
+	}
+
+	/** Writes the object, then each link of its chain in a loop. Each link is written by the chain field as usual, so nulls,
+	 * references and subclasses are handled by Kryo. When that reaches this serializer for the next link, only the link's other
+	 * fields are written and the link is handed back to the loop, so the stack depth stays the same however long the chain is. */
+	private void writeChain (Kryo kryo, Output output, Object object) {
+		Chain chain = chain(kryo);
+		int depth = kryo.getDepth();
+		if (depth == chain.depth) {
+			chain.depth = -1;
+			writeFields(output, object);
+			chain.link = object;
+			return;
+		}
+		int previousDepth = chain.depth;
+		Object previousLink = chain.link;
+		try {
+			writeFields(output, object);
+			while (true) {
+				chain.depth = depth + 1;
+				chain.link = null;
+				chainField.write(output, object);
+				if (chain.link == null) break;
+				object = chain.link;
+			}
+		} finally {
+			chain.depth = previousDepth;
+			chain.link = previousLink;
+		}
+	}
+
+	/** Returns the chain state for this serializer and the specified Kryo. It is kept in the {@link Kryo#getGraphContext() graph
+	 * context} rather than in the serializer, so the serializer holds no state for the chain being written or read. */
+	private Chain chain (Kryo kryo) {
+		ObjectMap graphContext = kryo.getGraphContext();
+		Chain chain = (Chain)graphContext.get(this);
+		if (chain == null) {
+			chain = new Chain();
+			graphContext.put(this, chain);
+		}
+		return chain;
+	}
+
+	/** Reads the object, then each link of its chain in a loop. See {@link #writeChain(Kryo, Output, Object)}. */
+	private void readChain (Kryo kryo, Input input, Object object) {
+		Chain chain = chain(kryo);
+		int depth = kryo.getDepth();
+		if (depth == chain.depth) {
+			chain.depth = -1;
+			readFields(input, object);
+			chain.link = object;
+			return;
+		}
+		int previousDepth = chain.depth;
+		Object previousLink = chain.link;
+		try {
+			readFields(input, object);
+			while (true) {
+				chain.depth = depth + 1;
+				chain.link = null;
+				chainField.read(input, object);
+				if (chain.link == null) break;
+				object = chain.link;
+			}
+		} finally {
+			chain.depth = previousDepth;
+			chain.link = previousLink;
+		}
+	}
+
 	/** Used by {@link #read(Kryo, Input, Class)} to create the new object. This can be overridden to customize object creation, eg
 	 * to call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
 	protected T create (Kryo kryo, Input input, Class<T> type) {
@@ -605,6 +727,7 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 				System.arraycopy(fields, i + 1, newFields, i, newFields.length - i);
 				fields = newFields;
 				removedFields.add(cachedField);
+				initializeChainField();
 				return;
 			}
 		}
@@ -633,6 +756,7 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 				System.arraycopy(fields, i + 1, newFields, i, newFields.length - i);
 				fields = newFields;
 				removedFields.add(cachedField);
+				initializeChainField();
 				return;
 			}
 		}
@@ -658,6 +782,14 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 	public CachedField[] getFields () {
 		return fields;
 	}
+
+	/**
+	 * Get all transient fields controlled by this FieldSerializer
+	 * @return all transient fields controlled by this FieldSerializer
+	 */
+	public CachedField[] getTransientFields () {
+		return transientFields;
+	}
 	
 	public Class getType () {
 		return type;
@@ -679,6 +811,14 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 		return copyTransient;
 	}
 
+	public boolean getSerializeTransient () {
+		return serializeTransient;
+	}
+
+	public boolean getIterativeChains () {
+		return iterativeChains;
+	}
+
 	/** Used by {@link #copy(Kryo, Object)} to create the new object. This can be overridden to customize object creation, eg to
 	 * call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
 	protected T createCopy (Kryo kryo, T original) {
@@ -789,4 +929,13 @@ public class FieldSerializer<T> extends Serializer<T> implements Comparator<Fiel
 	    Class<? extends Serializer> value();
 
 	}
+
+	/** The state of the chain being written or read by {@link FieldSerializer#writeChain(Kryo, Output, Object)} or
+	 * {@link FieldSerializer#readChain(Kryo, Input, Object)}. */
+	static private class Chain {
+		/** The depth at which a call for the next link of a chain is expected, or -1. */
+		int depth = -1;
+		/** The link passed back to the enclosing call by a call for the next link of a chain. */
+		Object link;
+	}
 }
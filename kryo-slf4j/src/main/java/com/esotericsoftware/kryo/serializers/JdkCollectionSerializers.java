@@ -0,0 +1,407 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import java.lang.reflect.Method;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/** Serializers for the collection views and wrappers returned by JDK factory methods, which are provided by
+ * {@link Kryo#addDefaultSerializer(Class, Class) default}: Collections.unmodifiable*, Collections.synchronized*, Arrays.asList,
+ * subList views and, when running on Java 9 or later, List.of, Set.of and Map.of. These classes usually have no no-arg
+ * constructor and their fields are JDK internals, so only the logical contents are written. On read the contents are rebuilt
+ * and passed to the same factory method.
+ * <p>
+ * The contents are written like {@link CollectionSerializer} and {@link MapSerializer} write them, so generic types and the
+ * element, key and value settings of those serializers apply. The wrapped collection is not written, so a wrapper is read with a
+ * new backing collection of a matching kind: an ArrayList or LinkedList for lists, a LinkedHashSet or TreeSet for sets and a
+ * LinkedHashMap or TreeMap for maps. The comparator of a sorted set or map is written. Wrappers and views are referenced before
+ * their contents are read. The immutable collections can only be created from their contents, so they cannot contain
+ * themselves. */
+public class JdkCollectionSerializers {
+	static private final Method listOf = method(List.class, "of", Object[].class);
+	static private final Method setOf = method(Set.class, "of", Object[].class);
+	static private final Method mapOfEntries = method(Map.class, "ofEntries", Entry[].class);
+
+	static public void addDefaultSerializers (Kryo kryo) {
+		// Registering the base wrapper class also covers its List, Set, Sorted* and Navigable* subclasses.
+		kryo.addDefaultSerializer(Collections.unmodifiableCollection(new ArrayList()).getClass(),
+			UnmodifiableCollectionSerializer.class);
+		kryo.addDefaultSerializer(Collections.unmodifiableMap(new LinkedHashMap()).getClass(), UnmodifiableMapSerializer.class);
+		kryo.addDefaultSerializer(Collections.synchronizedCollection(new ArrayList()).getClass(),
+			SynchronizedCollectionSerializer.class);
+		kryo.addDefaultSerializer(Collections.synchronizedMap(new LinkedHashMap()).getClass(), SynchronizedMapSerializer.class);
+		kryo.addDefaultSerializer(Arrays.asList().getClass(), ArraysAsListSerializer.class);
+		kryo.addDefaultSerializer(new ArrayList().subList(0, 0).getClass(), SubListSerializer.class);
+		kryo.addDefaultSerializer(new LinkedList().subList(0, 0).getClass(), SubListSerializer.class);
+		kryo.addDefaultSerializer(Arrays.asList().subList(0, 0).getClass(), SubListSerializer.class);
+		if (listOf != null) {
+			kryo.addDefaultSerializer(invoke(listOf, new Object[0]).getClass(), ImmutableListSerializer.class);
+			kryo.addDefaultSerializer(invoke(listOf, new Object[] {1}).getClass(), ImmutableListSerializer.class);
+			kryo.addDefaultSerializer(((List)invoke(listOf, new Object[] {1, 2, 3})).subList(0, 1).getClass(),
+				ImmutableListSerializer.class);
+			kryo.addDefaultSerializer(invoke(setOf, new Object[0]).getClass(), ImmutableSetSerializer.class);
+			kryo.addDefaultSerializer(invoke(setOf, new Object[] {1}).getClass(), ImmutableSetSerializer.class);
+			kryo.addDefaultSerializer(invoke(mapOfEntries, new Entry[0]).getClass(), ImmutableMapSerializer.class);
+			kryo.addDefaultSerializer(invoke(mapOfEntries, new Entry[] {new SimpleImmutableEntry(1, 1)}).getClass(),
+				ImmutableMapSerializer.class);
+		}
+	}
+
+	static private Method method (Class type, String name, Class parameterType) {
+		try {
+			return type.getMethod(name, parameterType);
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+
+	/** Invokes a static factory method that takes a single array parameter. */
+	static Object invoke (Method method, Object[] array) {
+		try {
+			return method.invoke(null, new Object[] {array});
+		} catch (Exception ex) {
+			throw new KryoException("Error invoking: " + method, ex);
+		}
+	}
+
+	/** Returns copies of the elements, or null if every element copied to itself. */
+	static Object[] copyElements (Kryo kryo, Collection original) {
+		Object[] elements = original.toArray();
+		boolean changed = false;
+		for (int i = 0, n = elements.length; i < n; i++) {
+			Object copy = kryo.copy(elements[i]);
+			if (copy != elements[i]) {
+				elements[i] = copy;
+				changed = true;
+			}
+		}
+		return changed ? elements : null;
+	}
+
+	/** Reads the elements for an immutable collection, which can only be created and referenced after its elements are read. */
+	static Object[] readImmutableElements (CollectionSerializer serializer, Kryo kryo, Input input) {
+		Class[] generics = kryo.removeGenerics(serializer);
+		int length = input.readVarInt(true);
+		ArrayList elements = new ArrayList(length);
+		serializer.readElements(kryo, input, elements, length, generics);
+		return elements.toArray();
+	}
+
+	/** Base class for serializers of wrappers around a Collection. The contents are read into a new collection of a matching
+	 * kind, which is wrapped and referenced before the elements are read. */
+	static abstract public class WrapperCollectionSerializer extends CollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			// Removed before the comparator, which may set generics for other serializers.
+			Class[] generics = kryo.removeGenerics(this);
+			if (object instanceof SortedSet) kryo.writeClassAndObject(output, ((SortedSet)object).comparator());
+			writeElements(kryo, output, object, generics);
+		}
+
+		public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+			Class[] generics = kryo.removeGenerics(this);
+			Comparator comparator = null;
+			if (SortedSet.class.isAssignableFrom(type)) comparator = (Comparator)kryo.readClassAndObject(input);
+			int length = input.readVarInt(true);
+			Collection collection = create(type, comparator, length);
+			Collection wrapper = wrap(type, collection);
+			kryo.reference(wrapper);
+			readElements(kryo, input, collection, length, generics);
+			return wrapper;
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			Comparator comparator = original instanceof SortedSet ? ((SortedSet)original).comparator() : null;
+			Collection collection = create(original.getClass(), comparator, original.size());
+			Collection wrapper = wrap(original.getClass(), collection);
+			kryo.reference(wrapper);
+			for (Object element : original)
+				collection.add(kryo.copy(element));
+			return wrapper;
+		}
+
+		/** Returns the collection to be wrapped. */
+		protected Collection create (Class type, Comparator comparator, int size) {
+			if (SortedSet.class.isAssignableFrom(type)) return new TreeSet(comparator);
+			if (Set.class.isAssignableFrom(type)) return new LinkedHashSet(Math.max(size * 4 / 3 + 1, 16));
+			if (List.class.isAssignableFrom(type) && !RandomAccess.class.isAssignableFrom(type)) return new LinkedList();
+			return new ArrayList(size);
+		}
+
+		/** Returns the collection wrapped by the factory method that created the specified type. */
+		abstract protected Collection wrap (Class type, Collection collection);
+	}
+
+	/** Serializer for the Collections.unmodifiable* collection wrappers. */
+	static public class UnmodifiableCollectionSerializer extends WrapperCollectionSerializer {
+		protected Collection wrap (Class type, Collection collection) {
+			if (NavigableSet.class.isAssignableFrom(type)) return Collections.unmodifiableNavigableSet((NavigableSet)collection);
+			if (SortedSet.class.isAssignableFrom(type)) return Collections.unmodifiableSortedSet((SortedSet)collection);
+			if (Set.class.isAssignableFrom(type)) return Collections.unmodifiableSet((Set)collection);
+			if (List.class.isAssignableFrom(type)) return Collections.unmodifiableList((List)collection);
+			return Collections.unmodifiableCollection(collection);
+		}
+	}
+
+	/** Serializer for the Collections.synchronized* collection wrappers. The wrapper is locked while it is written. */
+	static public class SynchronizedCollectionSerializer extends WrapperCollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			synchronized (object) {
+				super.write(kryo, output, object);
+			}
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			synchronized (original) {
+				return super.copy(kryo, original);
+			}
+		}
+
+		protected Collection wrap (Class type, Collection collection) {
+			if (NavigableSet.class.isAssignableFrom(type)) return Collections.synchronizedNavigableSet((NavigableSet)collection);
+			if (SortedSet.class.isAssignableFrom(type)) return Collections.synchronizedSortedSet((SortedSet)collection);
+			if (Set.class.isAssignableFrom(type)) return Collections.synchronizedSet((Set)collection);
+			if (List.class.isAssignableFrom(type)) return Collections.synchronizedList((List)collection);
+			return Collections.synchronizedCollection(collection);
+		}
+	}
+
+	/** Base class for serializers of wrappers around a Map. The entries are read into a new map of a matching kind, which is
+	 * wrapped and referenced before the entries are read. */
+	static abstract public class WrapperMapSerializer extends MapSerializer {
+		public void write (Kryo kryo, Output output, Map object) {
+			// Removed before the comparator, which may set generics for other serializers.
+			Class[] generics = kryo.removeGenerics(this);
+			if (object instanceof SortedMap) kryo.writeClassAndObject(output, ((SortedMap)object).comparator());
+			writeEntries(kryo, output, object, generics);
+		}
+
+		public Map read (Kryo kryo, Input input, Class<Map> type) {
+			Class[] generics = kryo.removeGenerics(this);
+			Comparator comparator = null;
+			if (SortedMap.class.isAssignableFrom(type)) comparator = (Comparator)kryo.readClassAndObject(input);
+			int length = input.readInt(true);
+			Map map = create(type, comparator, length);
+			Map wrapper = wrap(type, map);
+			kryo.reference(wrapper);
+			readEntries(kryo, input, map, length, generics);
+			return wrapper;
+		}
+
+		public Map copy (Kryo kryo, Map original) {
+			Comparator comparator = original instanceof SortedMap ? ((SortedMap)original).comparator() : null;
+			Map map = create(original.getClass(), comparator, original.size());
+			Map wrapper = wrap(original.getClass(), map);
+			kryo.reference(wrapper);
+			for (Object object : original.entrySet()) {
+				Entry entry = (Entry)object;
+				map.put(kryo.copy(entry.getKey()), kryo.copy(entry.getValue()));
+			}
+			return wrapper;
+		}
+
+		/** Returns the map to be wrapped. */
+		protected Map create (Class type, Comparator comparator, int size) {
+			if (SortedMap.class.isAssignableFrom(type)) return new TreeMap(comparator);
+			return new LinkedHashMap(Math.max(size * 4 / 3 + 1, 16));
+		}
+
+		/** Returns the map wrapped by the factory method that created the specified type. */
+		abstract protected Map wrap (Class type, Map map);
+	}
+
+	/** Serializer for the Collections.unmodifiable* map wrappers. */
+	static public class UnmodifiableMapSerializer extends WrapperMapSerializer {
+		protected Map wrap (Class type, Map map) {
+			if (NavigableMap.class.isAssignableFrom(type)) return Collections.unmodifiableNavigableMap((NavigableMap)map);
+			if (SortedMap.class.isAssignableFrom(type)) return Collections.unmodifiableSortedMap((SortedMap)map);
+			return Collections.unmodifiableMap(map);
+		}
+	}
+
+	/** Serializer for the Collections.synchronized* map wrappers. The wrapper is locked while it is written. */
+	static public class SynchronizedMapSerializer extends WrapperMapSerializer {
+		public void write (Kryo kryo, Output output, Map object) {
+			synchronized (object) {
+				super.write(kryo, output, object);
+			}
+		}
+
+		public Map copy (Kryo kryo, Map original) {
+			synchronized (original) {
+				return super.copy(kryo, original);
+			}
+		}
+
+		protected Map wrap (Class type, Map map) {
+			if (NavigableMap.class.isAssignableFrom(type)) return Collections.synchronizedNavigableMap((NavigableMap)map);
+			if (SortedMap.class.isAssignableFrom(type)) return Collections.synchronizedSortedMap((SortedMap)map);
+			return Collections.synchronizedMap(map);
+		}
+	}
+
+	/** Serializer for the fixed size list returned by Arrays.asList. The list is read backed by an Object[]. */
+	static public class ArraysAsListSerializer extends CollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			writeElements(kryo, output, object, kryo.removeGenerics(this));
+		}
+
+		public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+			Class[] generics = kryo.removeGenerics(this);
+			int length = input.readVarInt(true);
+			Object[] array = new Object[length];
+			List list = Arrays.asList(array);
+			kryo.reference(list);
+			ArrayList elements = new ArrayList(length);
+			readElements(kryo, input, elements, length, generics);
+			elements.toArray(array);
+			return list;
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			Object[] array = new Object[original.size()];
+			List list = Arrays.asList(array);
+			kryo.reference(list);
+			int i = 0;
+			for (Object element : original)
+				array[i++] = kryo.copy(element);
+			return list;
+		}
+	}
+
+	/** Serializer for the views returned by List#subList. Only the elements in the view are written, and the view is read as a
+	 * sublist of a new ArrayList. */
+	static public class SubListSerializer extends CollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			writeElements(kryo, output, object, kryo.removeGenerics(this));
+		}
+
+		public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+			Class[] generics = kryo.removeGenerics(this);
+			int length = input.readVarInt(true);
+			// The elements are added through the view, which is referenced first.
+			List list = new ArrayList(length).subList(0, 0);
+			kryo.reference(list);
+			readElements(kryo, input, list, length, generics);
+			return list;
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			List list = new ArrayList(original.size()).subList(0, 0);
+			kryo.reference(list);
+			for (Object element : original)
+				list.add(kryo.copy(element));
+			return list;
+		}
+	}
+
+	/** Serializer for the immutable lists returned by List.of and List.copyOf on Java 9 or later. A copy shares the original if
+	 * none of its elements change when copied. */
+	static public class ImmutableListSerializer extends CollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			writeElements(kryo, output, object, kryo.removeGenerics(this));
+		}
+
+		public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+			return create(readImmutableElements(this, kryo, input));
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			Object[] elements = copyElements(kryo, original);
+			return elements == null ? original : create(elements);
+		}
+
+		private List create (Object[] elements) {
+			// Unlike List.of, the lists from Stream#toList allow null.
+			for (int i = 0, n = elements.length; i < n; i++)
+				if (elements[i] == null) return Collections.unmodifiableList(Arrays.asList(elements));
+			return (List)invoke(listOf, elements);
+		}
+	}
+
+	/** Serializer for the immutable sets returned by Set.of and Set.copyOf on Java 9 or later. A copy shares the original if none
+	 * of its elements change when copied. */
+	static public class ImmutableSetSerializer extends CollectionSerializer {
+		public void write (Kryo kryo, Output output, Collection object) {
+			writeElements(kryo, output, object, kryo.removeGenerics(this));
+		}
+
+		public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+			return (Set)invoke(setOf, readImmutableElements(this, kryo, input));
+		}
+
+		public Collection copy (Kryo kryo, Collection original) {
+			Object[] elements = copyElements(kryo, original);
+			return elements == null ? original : (Set)invoke(setOf, elements);
+		}
+	}
+
+	/** Serializer for the immutable maps returned by Map.of, Map.ofEntries and Map.copyOf on Java 9 or later. A copy shares the
+	 * original if none of its keys or values change when copied. */
+	static public class ImmutableMapSerializer extends MapSerializer {
+		public void write (Kryo kryo, Output output, Map object) {
+			writeEntries(kryo, output, object, kryo.removeGenerics(this));
+		}
+
+		public Map read (Kryo kryo, Input input, Class<Map> type) {
+			Class[] generics = kryo.removeGenerics(this);
+			int length = input.readInt(true);
+			LinkedHashMap map = new LinkedHashMap(Math.max(length * 4 / 3 + 1, 16));
+			readEntries(kryo, input, map, length, generics);
+			return (Map)invoke(mapOfEntries, map.entrySet().toArray(new Entry[length]));
+		}
+
+		public Map copy (Kryo kryo, Map original) {
+			Entry[] entries = new Entry[original.size()];
+			boolean changed = false;
+			int i = 0;
+			for (Object object : original.entrySet()) {
+				Entry entry = (Entry)object;
+				Object key = kryo.copy(entry.getKey()), value = kryo.copy(entry.getValue());
+				if (key != entry.getKey() || value != entry.getValue()) changed = true;
+				entries[i++] = new SimpleImmutableEntry(key, value);
+			}
+			return changed ? (Map)invoke(mapOfEntries, entries) : original;
+		}
+	}
+}
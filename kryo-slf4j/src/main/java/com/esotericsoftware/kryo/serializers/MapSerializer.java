@@ -40,7 +40,6 @@ public class MapSerializer extends Serializer<Map> {
 	private Class keyClass, valueClass;
 	private Serializer keySerializer, valueSerializer;
 	private boolean keysCanBeNull = true, valuesCanBeNull = true;
-	private Class keyGenericType, valueGenericType;
 
 	/** @param keysCanBeNull False if all keys are not null. This saves 1 byte per key if keyClass is set. True if it is not known
 	 *           (default). */
@@ -71,28 +70,29 @@ public class MapSerializer extends Serializer<Map> {
 	}
 
 	public void setGenerics (Kryo kryo, Class[] generics) {
-		keyGenericType = null;
-		valueGenericType = null;
-		
-		if (generics != null && generics.length > 0) {
-			if (generics[0] != null && kryo.isFinal(generics[0])) keyGenericType = generics[0];
-			if (generics.length > 1 && generics[1] != null && kryo.isFinal(generics[1])) valueGenericType = generics[1];
-		}
+		kryo.setGenerics(this, generics);
 	}
 
 	public void write (Kryo kryo, Output output, Map map) {
+		writeEntries(kryo, output, map, kryo.removeGenerics(this));
+	}
+
+	/** Writes the length and the entries of the map.
+	 * @param generics The generic types removed from the Kryo for this serializer, may be null. */
+	void writeEntries (Kryo kryo, Output output, Map map, Class[] generics) {
 		int length = map.size();
 		output.writeInt(length, true);
 
+		Class keyGenericType = genericType(kryo, generics, 0);
+		Class valueGenericType = genericType(kryo, generics, 1);
+
 		Serializer keySerializer = this.keySerializer;
 		if (keyGenericType != null) {
 			if (keySerializer == null) keySerializer = kryo.getSerializer(keyGenericType);
-			keyGenericType = null;
 		}
 		Serializer valueSerializer = this.valueSerializer;
 		if (valueGenericType != null) {
 			if (valueSerializer == null) valueSerializer = kryo.getSerializer(valueGenericType);
-			valueGenericType = null;
 		}
 
 		for (Iterator iter = map.entrySet().iterator(); iter.hasNext();) {
@@ -114,6 +114,13 @@ public class MapSerializer extends Serializer<Map> {
 		}
 	}
 
+	/** Returns the generic type at the specified index, if it is final. */
+	static private Class genericType (Kryo kryo, Class[] generics, int index) {
+		if (generics == null || generics.length <= index) return null;
+		Class type = generics[index];
+		return type != null && kryo.isFinal(type) ? type : null;
+	}
+
 	/** Used by {@link #read(Kryo, Input, Class)} to create the new object. This can be overridden to customize object creation, eg
 	 * to call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
 	protected Map create (Kryo kryo, Input input, Class<Map> type) {
@@ -121,27 +128,36 @@ public class MapSerializer extends Serializer<Map> {
 	}
 
 	public Map read (Kryo kryo, Input input, Class<Map> type) {
+		// Removed before create, which may read other objects.
+		Class[] generics = kryo.removeGenerics(this);
 		Map map = create(kryo, input, type);
 		int length = input.readInt(true);
+		kryo.reference(map);
+		readEntries(kryo, input, map, length, generics);
+		return map;
+	}
 
+	/** Reads the entries written by {@link #writeEntries(Kryo, Output, Map, Class[])} and puts them in the map.
+	 * @param length The length, which has already been read.
+	 * @param generics The generic types removed from the Kryo for this serializer, may be null. */
+	void readEntries (Kryo kryo, Input input, Map map, int length, Class[] generics) {
 		Class keyClass = this.keyClass;
 		Class valueClass = this.valueClass;
 
+		Class keyGenericType = genericType(kryo, generics, 0);
+		Class valueGenericType = genericType(kryo, generics, 1);
+
 		Serializer keySerializer = this.keySerializer;
 		if (keyGenericType != null) {
 			keyClass = keyGenericType;
 			if (keySerializer == null) keySerializer = kryo.getSerializer(keyClass);
-			keyGenericType = null;
 		}
 		Serializer valueSerializer = this.valueSerializer;
 		if (valueGenericType != null) {
 			valueClass = valueGenericType;
 			if (valueSerializer == null) valueSerializer = kryo.getSerializer(valueClass);
-			valueGenericType = null;
 		}
 
-		kryo.reference(map);
-
 		for (int i = 0; i < length; i++) {
 			Object key;
 			if (keySerializer != null) {
@@ -161,7 +177,6 @@ public class MapSerializer extends Serializer<Map> {
 				value = kryo.readClassAndObject(input);
 			map.put(key, value);
 		}
-		return map;
 	}
 
 	protected Map createCopy (Kryo kryo, Map original) {
@@ -0,0 +1,276 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoCallback;
+import com.esotericsoftware.kryo.pool.KryoPool;
+
+/** Serializes large collections on multiple threads. The elements are split into segments of {@link #setSegmentSize(int)
+ * segment size} elements, each segment is written to its own buffer by a {@link Kryo} from the pool on a {@link ForkJoinPool},
+ * and the buffers are written after a table of their lengths. On read, the segments are decoded in parallel the same way.
+ * <p>
+ * Each segment is a separate object graph: references are only tracked within a segment, so an object that is referenced from
+ * elements in different segments is written once per segment and read back as separate objects. The Kryo instances from the pool
+ * must have the same registrations as each other, though not necessarily the same as the Kryo that writes the collection itself.
+ * Collections no larger than one segment are written on the calling thread, using the same format.
+ * <p>
+ * Requires Java 7 or later. */
+public class ParallelCollectionSerializer extends Serializer<Collection> {
+	private final KryoPool kryoPool;
+	private final ForkJoinPool forkJoinPool;
+	private int segmentSize = 16384;
+
+	/** Uses a {@link ForkJoinPool} shared by all parallel serializers, with parallelism equal to the number of available
+	 * processors. The shared pool is created on first use and its threads are daemon threads. */
+	public ParallelCollectionSerializer (KryoPool kryoPool) {
+		this(kryoPool, SharedPool.pool);
+	}
+
+	public ParallelCollectionSerializer (KryoPool kryoPool, ForkJoinPool forkJoinPool) {
+		if (kryoPool == null) throw new IllegalArgumentException("kryoPool cannot be null.");
+		if (forkJoinPool == null) throw new IllegalArgumentException("forkJoinPool cannot be null.");
+		this.kryoPool = kryoPool;
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	/** @param segmentSize The number of elements in each segment (default 16384). Larger segments reduce the per segment overhead
+	 *           and references that are written more than once, smaller segments spread the work more evenly. Only affects
+	 *           writing. */
+	public void setSegmentSize (int segmentSize) {
+		if (segmentSize < 1) throw new IllegalArgumentException("segmentSize must be > 0: " + segmentSize);
+		this.segmentSize = segmentSize;
+	}
+
+	public int getSegmentSize () {
+		return segmentSize;
+	}
+
+	public void write (Kryo kryo, Output output, Collection collection) {
+		writeElements(output, collection.toArray());
+	}
+
+	/** Used by {@link #read(Kryo, Input, Class)} to create the new object. This can be overridden to customize object creation, eg
+	 * to call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
+	protected Collection create (Kryo kryo, Input input, Class<Collection> type) {
+		return kryo.newInstance(type);
+	}
+
+	public Collection read (Kryo kryo, Input input, Class<Collection> type) {
+		Collection collection = create(kryo, input, type);
+		kryo.reference(collection);
+		Object[] elements = readElements(input, Object.class);
+		if (collection instanceof ArrayList) ((ArrayList)collection).ensureCapacity(elements.length);
+		for (int i = 0, n = elements.length; i < n; i++)
+			collection.add(elements[i]);
+		return collection;
+	}
+
+	/** Used by {@link #copy(Kryo, Collection)} to create the new object. This can be overridden to customize object creation, eg to
+	 * call a constructor with arguments. The default implementation uses {@link Kryo#newInstance(Class)}. */
+	protected Collection createCopy (Kryo kryo, Collection original) {
+		return kryo.newInstance(original.getClass());
+	}
+
+	public Collection copy (Kryo kryo, Collection original) {
+		Collection copy = createCopy(kryo, original);
+		kryo.reference(copy);
+		for (Object element : original)
+			copy.add(kryo.copy(element));
+		return copy;
+	}
+
+	/** Writes the element count, the segment lengths and then the segments, which are written in parallel. */
+	public void writeElements (Output output, final Object[] elements) {
+		int length = elements.length;
+		output.writeVarInt(length, true);
+		if (length == 0) return;
+		int segmentSize = this.segmentSize;
+		int segmentCount = (length + segmentSize - 1) / segmentSize;
+		output.writeVarInt(segmentSize, true);
+
+		Output[] segments = new Output[segmentCount];
+		if (segmentCount == 1)
+			segments[0] = writeSegment(elements, 0, length);
+		else {
+			List<Callable<Output>> tasks = new ArrayList(segmentCount);
+			for (int i = 0; i < segmentCount; i++) {
+				final int start = i * segmentSize, end = Math.min(start + segmentSize, length);
+				tasks.add(new Callable<Output>() {
+					public Output call () {
+						return writeSegment(elements, start, end);
+					}
+				});
+			}
+			List<Future<Output>> futures = forkJoinPool.invokeAll(tasks);
+			for (int i = 0; i < segmentCount; i++)
+				segments[i] = get(futures.get(i));
+		}
+
+		for (int i = 0; i < segmentCount; i++)
+			output.writeVarInt(segments[i].position(), true);
+		for (int i = 0; i < segmentCount; i++)
+			output.writeBytes(segments[i].getBuffer(), 0, segments[i].position());
+	}
+
+	Output writeSegment (final Object[] elements, final int start, final int end) {
+		return kryoPool.run(new KryoCallback<Output>() {
+			public Output execute (Kryo kryo) {
+				Output output = new Output(4096, -1);
+				boolean autoReset = kryo.getAutoReset();
+				kryo.setAutoReset(false);
+				try {
+					for (int i = start; i < end; i++)
+						kryo.writeClassAndObject(output, elements[i]);
+				} finally {
+					kryo.reset();
+					kryo.setAutoReset(autoReset);
+				}
+				return output;
+			}
+		});
+	}
+
+	/** Reads elements written by {@link #writeElements(Output, Object[])}, decoding the segments in parallel.
+	 * @param componentType The component type of the returned array. */
+	public Object[] readElements (Input input, Class componentType) {
+		int length = input.readVarInt(true);
+		final Object[] elements = (Object[])Array.newInstance(componentType, length);
+		if (length == 0) return elements;
+		int segmentSize = input.readVarInt(true);
+		if (segmentSize < 1) throw new KryoException("Invalid segment size: " + segmentSize);
+		int segmentCount = (length + segmentSize - 1) / segmentSize;
+
+		int[] segmentLengths = new int[segmentCount];
+		for (int i = 0; i < segmentCount; i++)
+			segmentLengths[i] = input.readVarInt(true);
+		byte[][] segments = new byte[segmentCount][];
+		for (int i = 0; i < segmentCount; i++)
+			segments[i] = input.readBytes(segmentLengths[i]);
+
+		if (segmentCount == 1)
+			readSegment(segments[0], elements, 0, length);
+		else {
+			List<Callable<Object>> tasks = new ArrayList(segmentCount);
+			for (int i = 0; i < segmentCount; i++) {
+				final byte[] segment = segments[i];
+				final int start = i * segmentSize, end = Math.min(start + segmentSize, length);
+				tasks.add(new Callable<Object>() {
+					public Object call () {
+						readSegment(segment, elements, start, end);
+						return null;
+					}
+				});
+			}
+			List<Future<Object>> futures = forkJoinPool.invokeAll(tasks);
+			for (int i = 0; i < segmentCount; i++)
+				get(futures.get(i));
+		}
+		return elements;
+	}
+
+	void readSegment (final byte[] segment, final Object[] elements, final int start, final int end) {
+		kryoPool.run(new KryoCallback<Object>() {
+			public Object execute (Kryo kryo) {
+				Input input = new Input(segment);
+				boolean autoReset = kryo.getAutoReset();
+				kryo.setAutoReset(false);
+				try {
+					for (int i = start; i < end; i++)
+						elements[i] = kryo.readClassAndObject(input);
+				} finally {
+					kryo.reset();
+					kryo.setAutoReset(autoReset);
+				}
+				if (input.position() != segment.length)
+					throw new KryoException("Segment not fully read: " + input.position() + " of " + segment.length + " bytes");
+				return null;
+			}
+		});
+	}
+
+	static private <T> T get (Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new KryoException("Interrupted while waiting for a segment.", ex);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof KryoException) throw (KryoException)cause;
+			throw new KryoException("Error serializing segment.", cause);
+		}
+	}
+
+	/** Holds the shared pool, so it is only created when a serializer that uses it is created. */
+	static private class SharedPool {
+		static final ForkJoinPool pool = new ForkJoinPool();
+	}
+
+	/** Serializes object arrays on multiple threads using the same format as {@link ParallelCollectionSerializer}. */
+	static public class ObjectArraySerializer extends Serializer<Object[]> {
+		private final ParallelCollectionSerializer serializer;
+
+		/** @see ParallelCollectionSerializer#ParallelCollectionSerializer(KryoPool) */
+		public ObjectArraySerializer (KryoPool kryoPool) {
+			serializer = new ParallelCollectionSerializer(kryoPool);
+		}
+
+		public ObjectArraySerializer (KryoPool kryoPool, ForkJoinPool forkJoinPool) {
+			serializer = new ParallelCollectionSerializer(kryoPool, forkJoinPool);
+		}
+
+		/** @see ParallelCollectionSerializer#setSegmentSize(int) */
+		public void setSegmentSize (int segmentSize) {
+			serializer.setSegmentSize(segmentSize);
+		}
+
+		public void write (Kryo kryo, Output output, Object[] array) {
+			serializer.writeElements(output, array);
+		}
+
+		public Object[] read (Kryo kryo, Input input, Class<Object[]> type) {
+			Object[] array = serializer.readElements(input, type.getComponentType());
+			kryo.reference(array);
+			return array;
+		}
+
+		public Object[] copy (Kryo kryo, Object[] original) {
+			Object[] copy = (Object[])Array.newInstance(original.getClass().getComponentType(), original.length);
+			kryo.reference(copy);
+			for (int i = 0, n = original.length; i < n; i++)
+				copy[i] = kryo.copy(original[i]);
+			return copy;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.serializers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.StreamValue;
+
+/** Serializes a {@link StreamValue} as chunks of bytes, each preceded by its length, followed by a zero length. Chunks at least as
+ * large as the Output's buffer are written straight to its OutputStream (see {@link Output#writeBytes(byte[], int, int)}), so
+ * memory use is bounded by the chunk size. Values are read lazily, see {@link StreamValue}.
+ * <p>
+ * Reading a value's stream after other data was read from the Input throws an IOException. */
+public class StreamValueSerializer extends Serializer<StreamValue> {
+	private int chunkSize = 64 * 1024;
+
+	/** @param chunkSize The maximum number of bytes written per chunk. Default is 64KB. */
+	public void setChunkSize (int chunkSize) {
+		if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+		this.chunkSize = chunkSize;
+	}
+
+	public int getChunkSize () {
+		return chunkSize;
+	}
+
+	public void write (Kryo kryo, Output output, StreamValue object) {
+		InputStream inputStream = object.getInputStream();
+		byte[] chunk = new byte[chunkSize];
+		try {
+			while (true) {
+				int count = 0;
+				// Fill the chunk, so short reads don't result in short chunks.
+				while (count < chunk.length) {
+					int read = inputStream.read(chunk, count, chunk.length - count);
+					if (read == -1) break;
+					count += read;
+				}
+				if (count == 0) break;
+				output.writeVarInt(count, true);
+				output.writeBytes(chunk, 0, count);
+				if (count < chunk.length) break;
+			}
+			output.writeVarInt(0, true);
+		} catch (IOException ex) {
+			throw new KryoException("Error reading stream value.", ex);
+		} finally {
+			try {
+				inputStream.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	public StreamValue read (Kryo kryo, Input input, Class<StreamValue> type) {
+		return new StreamValue(new ChunkInputStream(input));
+	}
+
+	/** Reads the chunks of a value from the Input as they are needed. */
+	static class ChunkInputStream extends InputStream {
+		private final Input input;
+		private int remaining;
+		private boolean end;
+		private long expectedTotal;
+
+		ChunkInputStream (Input input) {
+			this.input = input;
+			expectedTotal = input.total();
+		}
+
+		public int read () throws IOException {
+			if (!nextChunk()) return -1;
+			remaining--;
+			expectedTotal++;
+			return input.readByte() & 0xFF;
+		}
+
+		public int read (byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) return 0;
+			if (!nextChunk()) return -1;
+			int count = Math.min(length, remaining);
+			input.readBytes(bytes, offset, count);
+			remaining -= count;
+			expectedTotal += count;
+			return count;
+		}
+
+		public int available () {
+			return remaining;
+		}
+
+		/** @return false if the last chunk was read. */
+		private boolean nextChunk () throws IOException {
+			if (end) return false;
+			if (input.total() != expectedTotal)
+				throw new IOException("The Input was read before the stream value was read to the end.");
+			if (remaining > 0) return true;
+			remaining = input.readVarInt(true);
+			expectedTotal = input.total();
+			if (remaining == 0) {
+				end = true;
+				return false;
+			}
+			return true;
+		}
+
+		/** Skips the remaining chunks. */
+		public void close () throws IOException {
+			while (nextChunk()) {
+				input.skip(remaining);
+				expectedTotal += remaining;
+				remaining = 0;
+			}
+		}
+	}
+}
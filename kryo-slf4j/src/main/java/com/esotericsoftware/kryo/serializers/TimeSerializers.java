@@ -0,0 +1,355 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.ObjectMap;
+
+/** Serializers for the java.time classes, which are provided by {@link Kryo#addDefaultSerializer(Class, Class) default} when
+ * running on Java 8 or later. Seconds and nanoseconds are written as separate varints, dates as a single varlong with the year,
+ * month and day packed together. Zone IDs are written by name the first time they are encountered in an object graph, after
+ * that a varint reference is written. */
+public class TimeSerializers {
+	static private final Object ZONE_ID_WRITE = new Object(), ZONE_ID_READ = new Object();
+
+	static public void addDefaultSerializers (Kryo kryo) {
+		kryo.addDefaultSerializer(Duration.class, DurationSerializer.class);
+		kryo.addDefaultSerializer(Instant.class, InstantSerializer.class);
+		kryo.addDefaultSerializer(LocalDate.class, LocalDateSerializer.class);
+		kryo.addDefaultSerializer(LocalTime.class, LocalTimeSerializer.class);
+		kryo.addDefaultSerializer(LocalDateTime.class, LocalDateTimeSerializer.class);
+		kryo.addDefaultSerializer(ZoneOffset.class, ZoneOffsetSerializer.class);
+		kryo.addDefaultSerializer(ZoneId.class, ZoneIdSerializer.class);
+		kryo.addDefaultSerializer(OffsetTime.class, OffsetTimeSerializer.class);
+		kryo.addDefaultSerializer(OffsetDateTime.class, OffsetDateTimeSerializer.class);
+		kryo.addDefaultSerializer(ZonedDateTime.class, ZonedDateTimeSerializer.class);
+		kryo.addDefaultSerializer(Year.class, YearSerializer.class);
+		kryo.addDefaultSerializer(YearMonth.class, YearMonthSerializer.class);
+		kryo.addDefaultSerializer(MonthDay.class, MonthDaySerializer.class);
+		kryo.addDefaultSerializer(Period.class, PeriodSerializer.class);
+	}
+
+	static void writeDate (Output output, LocalDate date) {
+		output.writeVarLong(((long)date.getYear() << 9) | (date.getMonthValue() << 5) | date.getDayOfMonth(), false);
+	}
+
+	static LocalDate readDate (Input input) {
+		long packed = input.readVarLong(false);
+		return LocalDate.of((int)(packed >> 9), (int)(packed >>> 5) & 15, (int)packed & 31);
+	}
+
+	static void writeTime (Output output, LocalTime time) {
+		output.writeVarInt(time.toSecondOfDay(), true);
+		output.writeVarInt(time.getNano(), true);
+	}
+
+	static LocalTime readTime (Input input) {
+		int secondOfDay = input.readVarInt(true);
+		int nano = input.readVarInt(true);
+		return LocalTime.of(secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, nano);
+	}
+
+	/** Offsets that are a multiple of 15 minutes, which is nearly all of them, are written in 15 minute units. */
+	static void writeOffset (Output output, ZoneOffset offset) {
+		int seconds = offset.getTotalSeconds();
+		if (seconds % 900 == 0)
+			output.writeVarInt((seconds / 900) << 1, false);
+		else
+			output.writeVarInt((seconds << 1) | 1, false);
+	}
+
+	static ZoneOffset readOffset (Input input) {
+		int value = input.readVarInt(false);
+		if ((value & 1) == 0) return ZoneOffset.ofTotalSeconds((value >> 1) * 900);
+		return ZoneOffset.ofTotalSeconds(value >> 1);
+	}
+
+	static void writeZone (Kryo kryo, Output output, ZoneId zone) {
+		String id = zone.getId();
+		ObjectMap<String, Integer> ids = (ObjectMap)kryo.getGraphContext().get(ZONE_ID_WRITE);
+		if (ids == null) {
+			ids = new ObjectMap();
+			kryo.getGraphContext().put(ZONE_ID_WRITE, ids);
+		}
+		Integer reference = ids.get(id);
+		if (reference != null) {
+			output.writeVarInt(reference + 1, true);
+			return;
+		}
+		// Only write the zone ID the first time encountered in object graph.
+		ids.put(id, ids.size);
+		output.writeVarInt(0, true);
+		output.writeString(id);
+	}
+
+	static ZoneId readZone (Kryo kryo, Input input) {
+		ArrayList<ZoneId> zones = (ArrayList)kryo.getGraphContext().get(ZONE_ID_READ);
+		if (zones == null) {
+			zones = new ArrayList();
+			kryo.getGraphContext().put(ZONE_ID_READ, zones);
+		}
+		int reference = input.readVarInt(true);
+		if (reference != 0) return zones.get(reference - 1);
+		ZoneId zone = ZoneId.of(input.readString());
+		zones.add(zone);
+		return zone;
+	}
+
+	static public class DurationSerializer extends Serializer<Duration> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, Duration object) {
+			output.writeVarLong(object.getSeconds(), false);
+			output.writeVarInt(object.getNano(), true);
+		}
+
+		public Duration read (Kryo kryo, Input input, Class<Duration> type) {
+			long seconds = input.readVarLong(false);
+			return Duration.ofSeconds(seconds, input.readVarInt(true));
+		}
+	}
+
+	static public class InstantSerializer extends Serializer<Instant> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, Instant object) {
+			output.writeVarLong(object.getEpochSecond(), false);
+			output.writeVarInt(object.getNano(), true);
+		}
+
+		public Instant read (Kryo kryo, Input input, Class<Instant> type) {
+			long seconds = input.readVarLong(false);
+			return Instant.ofEpochSecond(seconds, input.readVarInt(true));
+		}
+	}
+
+	static public class LocalDateSerializer extends Serializer<LocalDate> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, LocalDate object) {
+			writeDate(output, object);
+		}
+
+		public LocalDate read (Kryo kryo, Input input, Class<LocalDate> type) {
+			return readDate(input);
+		}
+	}
+
+	static public class LocalTimeSerializer extends Serializer<LocalTime> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, LocalTime object) {
+			writeTime(output, object);
+		}
+
+		public LocalTime read (Kryo kryo, Input input, Class<LocalTime> type) {
+			return readTime(input);
+		}
+	}
+
+	static public class LocalDateTimeSerializer extends Serializer<LocalDateTime> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, LocalDateTime object) {
+			writeDate(output, object.toLocalDate());
+			writeTime(output, object.toLocalTime());
+		}
+
+		public LocalDateTime read (Kryo kryo, Input input, Class<LocalDateTime> type) {
+			LocalDate date = readDate(input);
+			return LocalDateTime.of(date, readTime(input));
+		}
+	}
+
+	static public class ZoneOffsetSerializer extends Serializer<ZoneOffset> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, ZoneOffset object) {
+			writeOffset(output, object);
+		}
+
+		public ZoneOffset read (Kryo kryo, Input input, Class<ZoneOffset> type) {
+			return readOffset(input);
+		}
+	}
+
+	static public class ZoneIdSerializer extends Serializer<ZoneId> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, ZoneId object) {
+			writeZone(kryo, output, object);
+		}
+
+		public ZoneId read (Kryo kryo, Input input, Class<ZoneId> type) {
+			return readZone(kryo, input);
+		}
+	}
+
+	static public class OffsetTimeSerializer extends Serializer<OffsetTime> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, OffsetTime object) {
+			writeTime(output, object.toLocalTime());
+			writeOffset(output, object.getOffset());
+		}
+
+		public OffsetTime read (Kryo kryo, Input input, Class<OffsetTime> type) {
+			LocalTime time = readTime(input);
+			return OffsetTime.of(time, readOffset(input));
+		}
+	}
+
+	static public class OffsetDateTimeSerializer extends Serializer<OffsetDateTime> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, OffsetDateTime object) {
+			writeDate(output, object.toLocalDate());
+			writeTime(output, object.toLocalTime());
+			writeOffset(output, object.getOffset());
+		}
+
+		public OffsetDateTime read (Kryo kryo, Input input, Class<OffsetDateTime> type) {
+			LocalDate date = readDate(input);
+			LocalTime time = readTime(input);
+			return OffsetDateTime.of(date, time, readOffset(input));
+		}
+	}
+
+	/** Writes the local date and time, the zone and the offset. The offset is needed to restore the same instant when the local
+	 * time is ambiguous, such as during a daylight saving time overlap. */
+	static public class ZonedDateTimeSerializer extends Serializer<ZonedDateTime> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, ZonedDateTime object) {
+			writeDate(output, object.toLocalDate());
+			writeTime(output, object.toLocalTime());
+			writeZone(kryo, output, object.getZone());
+			writeOffset(output, object.getOffset());
+		}
+
+		public ZonedDateTime read (Kryo kryo, Input input, Class<ZonedDateTime> type) {
+			LocalDate date = readDate(input);
+			LocalTime time = readTime(input);
+			ZoneId zone = readZone(kryo, input);
+			return ZonedDateTime.ofLocal(LocalDateTime.of(date, time), zone, readOffset(input));
+		}
+	}
+
+	static public class YearSerializer extends Serializer<Year> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, Year object) {
+			output.writeVarInt(object.getValue(), false);
+		}
+
+		public Year read (Kryo kryo, Input input, Class<Year> type) {
+			return Year.of(input.readVarInt(false));
+		}
+	}
+
+	static public class YearMonthSerializer extends Serializer<YearMonth> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, YearMonth object) {
+			output.writeVarLong(((long)object.getYear() << 4) | object.getMonthValue(), false);
+		}
+
+		public YearMonth read (Kryo kryo, Input input, Class<YearMonth> type) {
+			long packed = input.readVarLong(false);
+			return YearMonth.of((int)(packed >> 4), (int)packed & 15);
+		}
+	}
+
+	static public class MonthDaySerializer extends Serializer<MonthDay> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, MonthDay object) {
+			output.writeVarInt((object.getMonthValue() << 5) | object.getDayOfMonth(), true);
+		}
+
+		public MonthDay read (Kryo kryo, Input input, Class<MonthDay> type) {
+			int packed = input.readVarInt(true);
+			return MonthDay.of(packed >>> 5, packed & 31);
+		}
+	}
+
+	static public class PeriodSerializer extends Serializer<Period> {
+		{
+			setImmutable(true);
+		}
+
+		public void write (Kryo kryo, Output output, Period object) {
+			output.writeVarInt(object.getYears(), false);
+			output.writeVarInt(object.getMonths(), false);
+			output.writeVarInt(object.getDays(), false);
+		}
+
+		public Period read (Kryo kryo, Input input, Class<Period> type) {
+			int years = input.readVarInt(false);
+			int months = input.readVarInt(false);
+			return Period.of(years, months, input.readVarInt(false));
+		}
+	}
+}
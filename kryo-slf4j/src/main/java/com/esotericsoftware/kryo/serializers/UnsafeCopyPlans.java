@@ -0,0 +1,124 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.serializers;
+
+import static com.esotericsoftware.kryo.util.UnsafeUtil.unsafe;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import sun.misc.Unsafe;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.CachedField;
+
+/** Copy plans that use sun.misc.Unsafe to copy memory in bulk. Only used when Unsafe is available. */
+final class UnsafeCopyPlans {
+	static CopyPlan newPrimitiveArrayPlan (Class type) {
+		return new UnsafePrimitiveArrayPlan(type.getComponentType(), unsafe().arrayBaseOffset(type), unsafe().arrayIndexScale(type));
+	}
+
+	/** Returns a plan that copies the memory between the first and the last field of objects that have only primitive fields, or
+	 * null if the type has object fields or the serializer does not copy every field. */
+	static CopyPlan newPrimitiveObjectPlan (FieldSerializer serializer) {
+		CachedField[] fields = serializer.getFields();
+		int copiedFields = fields.length + (serializer.getCopyTransient() ? serializer.getTransientFields().length : 0);
+		int fieldCount = 0;
+		long start = Long.MAX_VALUE, end = 0;
+		for (Class type = serializer.type; type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) continue;
+				Class fieldType = field.getType();
+				if (!fieldType.isPrimitive()) return null;
+				long offset = unsafe().objectFieldOffset(field);
+				start = Math.min(start, offset);
+				end = Math.max(end, offset + sizeOf(fieldType));
+				fieldCount++;
+			}
+		}
+		if (fieldCount != copiedFields) return null;
+		if (fieldCount == 0) start = end = 0;
+		return new UnsafePrimitiveObjectPlan(serializer, fields, start, end - start);
+	}
+
+	static private int sizeOf (Class type) {
+		if (type == long.class || type == double.class) return 8;
+		if (type == int.class || type == float.class) return 4;
+		if (type == short.class || type == char.class) return 2;
+		return 1;
+	}
+
+	static final class UnsafePrimitiveArrayPlan extends CopyPlan {
+		private final Class componentType;
+		private final long baseOffset;
+		private final int indexScale;
+
+		UnsafePrimitiveArrayPlan (Class componentType, long baseOffset, int indexScale) {
+			this.componentType = componentType;
+			this.baseOffset = baseOffset;
+			this.indexScale = indexScale;
+		}
+
+		public boolean isLeaf () {
+			return true;
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			int length = Array.getLength(original);
+			Object copy = Array.newInstance(componentType, length);
+			unsafe().copyMemory(original, baseOffset, copy, baseOffset, (long)length * indexScale);
+			return copy;
+		}
+	}
+
+	static final class UnsafePrimitiveObjectPlan extends CopyPlan {
+		private final FieldSerializer serializer;
+		private final CachedField[] fields;
+		private final long offset, length;
+
+		UnsafePrimitiveObjectPlan (FieldSerializer serializer, CachedField[] fields, long offset, long length) {
+			this.serializer = serializer;
+			this.fields = fields;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public boolean isLeaf () {
+			return true;
+		}
+
+		public Object copy (Kryo kryo, Object original) {
+			// Fields removed after the plan was compiled must not be copied.
+			if (serializer.getFields() != fields) return serializer.copy(kryo, original);
+			Object copy = serializer.createCopy(kryo, original);
+			// Unsafe#copyMemory only accepts arrays on the heap, so copy a word at a time once the offset is aligned.
+			Unsafe unsafe = unsafe();
+			long off = offset, end = offset + length;
+			for (; (off & 7) != 0 && off < end; off++)
+				unsafe.putByte(copy, off, unsafe.getByte(original, off));
+			for (; off + 8 <= end; off += 8)
+				unsafe.putLong(copy, off, unsafe.getLong(original, off));
+			for (; off < end; off++)
+				unsafe.putByte(copy, off, unsafe.getByte(original, off));
+			return copy;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo.util;
+
+/** A pool of byte arrays of a single size, so buffers can be reused instead of allocated for each use. Arrays of other sizes are
+ * not pooled. This class is not thread safe, a pool is meant to be shared by the objects used on a single thread. */
+public class ByteArrayPool {
+	private final int arraySize;
+	private final byte[][] free;
+	private int freeCount;
+
+	/** @param arraySize The length of the arrays returned by {@link #obtain()}.
+	 * @param maximum The maximum number of free arrays kept by the pool. */
+	public ByteArrayPool (int arraySize, int maximum) {
+		if (arraySize <= 0) throw new IllegalArgumentException("arraySize must be > 0: " + arraySize);
+		if (maximum < 0) throw new IllegalArgumentException("maximum cannot be < 0: " + maximum);
+		this.arraySize = arraySize;
+		free = new byte[maximum][];
+	}
+
+	/** Returns a free array from the pool, or a new array if the pool is empty. The contents of the array are undefined. */
+	public byte[] obtain () {
+		if (freeCount == 0) return new byte[arraySize];
+		byte[] array = free[--freeCount];
+		free[freeCount] = null;
+		return array;
+	}
+
+	/** Returns an array to the pool. The array is discarded if its length is not the pool's array size or the pool is full. */
+	public void free (byte[] array) {
+		if (array == null) throw new IllegalArgumentException("array cannot be null.");
+		if (array.length != arraySize || freeCount == free.length) return;
+		free[freeCount++] = array;
+	}
+
+	/** Removes all free arrays from the pool. */
+	public void clear () {
+		for (int i = 0; i < freeCount; i++)
+			free[i] = null;
+		freeCount = 0;
+	}
+
+	public int getArraySize () {
+		return arraySize;
+	}
+
+	/** Returns the number of free arrays in the pool. */
+	public int getFree () {
+		return freeCount;
+	}
+}
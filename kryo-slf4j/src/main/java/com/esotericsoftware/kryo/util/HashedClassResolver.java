@@ -0,0 +1,181 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static com.esotericsoftware.kryo.util.Util.className;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/** Resolves registered classes by a stable 32-bit hash of the class name rather than by registration ID, so the order and IDs
+ * used to register classes do not need to match across the writing and reading side. Each side only needs to register the
+ * classes it uses. The first time a class is encountered in an object graph its 4 byte hash is written, after that a small
+ * varint reference is written.
+ * <p>
+ * Primitives, primitive wrappers and String are still written by ID, as these are registered by Kryo with the same IDs
+ * everywhere. Classes that are not registered (see {@link Kryo#setRegistrationRequired(boolean)}) are written by name the same
+ * as {@link DefaultClassResolver}.
+ * <p>
+ * Two registered classes whose names hash to the same value cause a {@link KryoException} when the second is registered.
+ * {@link #hash(Class)} can be overridden to resolve such a collision or to keep the hash of a class that has been renamed. */
+public class HashedClassResolver extends DefaultClassResolver {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HashedClassResolver.class);
+
+	static private final int HASH = 2;
+	static private final int ID_OFFSET = 3; // Offset for NULL, NAME and HASH.
+
+	protected final IntMap<Registration> hashToRegistration = new IntMap();
+
+	public Registration register (Registration registration) {
+		if (registration == null) throw new IllegalArgumentException("registration cannot be null.");
+		Class type = registration.getType();
+		if (registration.getId() != NAME && !isWrittenById(type)) {
+			int hash = hash(type);
+			Registration existing = hashToRegistration.get(hash);
+			if (existing != null && existing.getType() != type) {
+				throw new KryoException("Class name hash collision: " + className(type) + " and " + className(existing.getType())
+					+ " both hash to: 0x" + Integer.toHexString(hash));
+			}
+			hashToRegistration.put(hash, registration);
+		}
+		return super.register(registration);
+	}
+
+	/** Returns true if the type is written by registration ID rather than by hash. By default this is primitives (and so their
+	 * wrappers) and String. */
+	protected boolean isWrittenById (Class type) {
+		return type.isPrimitive() || type == String.class;
+	}
+
+	/** Returns the hash used to identify the registered type. Must return the same value for the type on every side that reads
+	 * or writes it. By default this is {@link #hash(String)} of the class name. */
+	protected int hash (Class type) {
+		return hash(type.getName());
+	}
+
+	/** Returns a 32-bit hash of the class name that is stable across JVMs and Java versions: FNV-1a over the name's characters,
+	 * finished with the MurmurHash3 finalizer to spread names that differ only at the end. */
+	static public int hash (String className) {
+		int hash = 0x811c9dc5;
+		for (int i = 0, n = className.length(); i < n; i++) {
+			hash ^= className.charAt(i);
+			hash *= 0x01000193;
+		}
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
+	public Registration writeClass (Output output, Class type) {
+		final String methodName = "writeClass : ";
+
+		if (type == null) {
+			LOGGER.debug("{} Write : null", methodName);
+			output.writeVarInt(Kryo.NULL, true);
+			return null;
+		}
+		Registration registration = kryo.getRegistration(type);
+		if (registration.getId() == NAME)
+			writeName(output, type, registration);
+		else if (isWrittenById(registration.getType())) {
+			LOGGER.trace("{} Write class {}: {}", methodName, registration.getId(), className(type));
+			output.writeVarInt(registration.getId() + ID_OFFSET, true);
+		} else
+			writeHash(output, type, registration);
+		return registration;
+	}
+
+	protected void writeHash (Output output, Class type, Registration registration) {
+		final String methodName = "writeHash : ";
+
+		output.writeVarInt(HASH, true);
+		if (classToNameId != null) {
+			int nameId = classToNameId.get(type, -1);
+			if (nameId != -1) {
+				LOGGER.trace("{} Write class hash reference {}: {}", methodName, nameId, className(type));
+				output.writeVarInt(nameId, true);
+				return;
+			}
+		}
+		// Only write the hash the first time encountered in object graph.
+		int hash = hash(registration.getType());
+		LOGGER.trace("{} Write class hash 0x{}: {}", methodName, Integer.toHexString(hash), className(type));
+		int nameId = nextNameId++;
+		if (classToNameId == null) classToNameId = new IdentityObjectIntMap();
+		classToNameId.put(type, nameId);
+		output.writeVarInt(nameId, true);
+		output.writeInt(hash);
+	}
+
+	public Registration readClass (Input input) {
+		final String methodName = "readClass : ";
+
+		int classID = input.readVarInt(true);
+		switch (classID) {
+		case Kryo.NULL:
+			LOGGER.debug("{} Read : null", methodName);
+			return null;
+		case NAME + 2:
+			return readName(input);
+		case HASH:
+			return readHash(input);
+		}
+		Registration registration = idToRegistration.get(classID - ID_OFFSET);
+		if (registration == null) throw new KryoException("Encountered unregistered class ID: " + (classID - ID_OFFSET));
+		LOGGER.trace("{} Read class {}: {}", methodName, (classID - ID_OFFSET), className(registration.getType()));
+		return registration;
+	}
+
+	protected Registration readHash (Input input) {
+		final String methodName = "readHash : ";
+
+		int nameId = input.readVarInt(true);
+		if (nameIdToClass == null) nameIdToClass = new IntMap();
+		Class type = nameIdToClass.get(nameId);
+		if (type != null) {
+			LOGGER.trace("{} Read class hash reference {}: {}", methodName, nameId, className(type));
+			return kryo.getRegistration(type);
+		}
+		// Only read the hash the first time encountered in object graph.
+		int hash = input.readInt();
+		Registration registration = hashToRegistration.get(hash);
+		if (registration == null) throw new KryoException("Encountered unregistered class hash: 0x" + Integer.toHexString(hash));
+		nameIdToClass.put(nameId, registration.getType());
+		LOGGER.trace("{} Read class hash 0x{}: {}", methodName, Integer.toHexString(hash), className(registration.getType()));
+		return registration;
+	}
+
+	public void reset () {
+		// Hash references are used even when registration is required, so they are always cleared.
+		if (classToNameId != null) classToNameId.clear();
+		if (nameIdToClass != null) nameIdToClass.clear();
+		nextNameId = 0;
+	}
+}
@@ -0,0 +1,126 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo.util;
+
+import static com.esotericsoftware.kryo.util.Util.*;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+import org.objenesis.strategy.InstantiatorStrategy;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+
+/** An instantiator strategy that binds public no-arg constructors to a {@link Supplier} generated by {@link LambdaMetafactory},
+ * so creating an object is a direct allocation rather than a reflective call. Generated suppliers are cached per class and
+ * shared by all strategy instances. Classes that can't be bound this way (non-public classes or constructors, classes without a
+ * no-arg constructor, or classes not visible to Kryo's class loader) are delegated to the fallback strategy, which defaults to
+ * {@link Kryo.DefaultInstantiatorStrategy}. Set a fallback such as {@link org.objenesis.strategy.StdInstantiatorStrategy} to
+ * create objects that have no no-arg constructor.
+ * <p>
+ * Requires Java 8 or later. */
+public class LambdaInstantiatorStrategy implements InstantiatorStrategy {
+	/** The generated supplier for each class, or null if the class can't be bound. */
+	static private final ClassValue<Supplier> suppliers = new ClassValue<Supplier>() {
+		protected Supplier computeValue (Class type) {
+			return newSupplier(type);
+		}
+	};
+
+	private InstantiatorStrategy fallbackStrategy;
+
+	public LambdaInstantiatorStrategy () {
+		this(new Kryo.DefaultInstantiatorStrategy());
+	}
+
+	public LambdaInstantiatorStrategy (InstantiatorStrategy fallbackStrategy) {
+		this.fallbackStrategy = fallbackStrategy;
+	}
+
+	public void setFallbackInstantiatorStrategy (InstantiatorStrategy fallbackStrategy) {
+		this.fallbackStrategy = fallbackStrategy;
+	}
+
+	public InstantiatorStrategy getFallbackInstantiatorStrategy () {
+		return fallbackStrategy;
+	}
+
+	public ObjectInstantiator newInstantiatorOf (final Class type) {
+		final Supplier supplier = suppliers.get(type);
+		if (supplier != null) {
+			return new ObjectInstantiator() {
+				public Object newInstance () {
+					return supplier.get();
+				}
+			};
+		}
+		if (fallbackStrategy == null)
+			throw new KryoException("Class cannot be created (missing public no-arg constructor): " + className(type));
+		return fallbackStrategy.newInstantiatorOf(type);
+	}
+
+	/** Returns true if a generated supplier is used to create instances of the specified type. */
+	static public boolean isBound (Class type) {
+		return suppliers.get(type) != null;
+	}
+
+	/** @return May be null. */
+	static Supplier newSupplier (Class type) {
+		if (!isAccessible(type)) return null;
+		try {
+			// The generated class is defined with this class as its host, so the type must resolve from Kryo's class loader.
+			ClassLoader loader = LambdaInstantiatorStrategy.class.getClassLoader();
+			if (Class.forName(type.getName(), false, loader) != type) return null;
+		} catch (ClassNotFoundException ex) {
+			return null;
+		}
+		try {
+			Constructor constructor = type.getConstructor((Class[])null);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflectConstructor(constructor);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+				MethodType.methodType(Object.class), handle, MethodType.methodType(type));
+			return (Supplier)site.getTarget().invokeWithArguments();
+		} catch (Throwable ex) {
+			return null;
+		}
+	}
+
+	/** Returns true if the type and all its enclosing types are public and the type can be constructed without an outer
+	 * instance. */
+	static private boolean isAccessible (Class type) {
+		int modifiers = type.getModifiers();
+		if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(modifiers)) return false;
+		for (Class c = type; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) return false;
+			if (c.isLocalClass() || c.isAnonymousClass()) return false;
+			if (c.isMemberClass() && !Modifier.isStatic(c.getModifiers())) return false;
+		}
+		return true;
+	}
+}
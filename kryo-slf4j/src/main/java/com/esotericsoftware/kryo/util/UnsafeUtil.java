@@ -23,6 +23,7 @@ import static com.esotericsoftware.kryo.util.UnsafeUtil.unsafe;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -59,6 +60,9 @@ public class UnsafeUtil {
 
 	// Constructor to be used for creation of ByteBuffers that use preallocated memory regions 
 	static Constructor<? extends ByteBuffer> directByteBufferConstr;
+
+	// Unsafe.invokeCleaner, used to release direct buffers on Java 9 or later
+	static private Method invokeCleaner;
 	
 	
 	static {
@@ -109,6 +113,16 @@ public class UnsafeUtil {
 			directByteBufferConstr = null;
 		}		
 	}
+
+	static {
+		if (_unsafe != null) {
+			try {
+				invokeCleaner = _unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (Exception e) {
+				invokeCleaner = null;
+			}
+		}
+	}
 	
 	/***
 	 * Return the sun.misc.Unsafe object. If null is returned,
@@ -168,15 +182,23 @@ public class UnsafeUtil {
 	/***
 	 * Release a direct buffer.  
 	 * 
-	 * NOTE: If Cleaner is not accessible due to SecurityManager restrictions, reflection could be used
-	 * to obtain the "clean" method and then invoke it.
+	 * This is best-effort: Unsafe.invokeCleaner is used on Java 9 or later, sun.misc.Cleaner before that. If neither
+	 * works, eg for a slice of a buffer or when the Cleaner is not accessible, the buffer is released when it is garbage
+	 * collected.
 	 */
 	static public void releaseBuffer(ByteBuffer niobuffer) {
 		if(niobuffer != null && niobuffer.isDirect()) {
-			Object cleaner = ((DirectBuffer) niobuffer).cleaner();
-			if(cleaner != null)
-				((Cleaner)cleaner).clean();
-			niobuffer = null;
+			try {
+				if (invokeCleaner != null)
+					invokeCleaner.invoke(_unsafe, niobuffer);
+				else {
+					Object cleaner = ((DirectBuffer) niobuffer).cleaner();
+					if(cleaner != null)
+						((Cleaner)cleaner).clean();
+				}
+			} catch (Throwable ignored) {
+				LOGGER.trace("releaseBuffer : Unable to release direct buffer, it is released when garbage collected");
+			}
 		}		
 	}
 }
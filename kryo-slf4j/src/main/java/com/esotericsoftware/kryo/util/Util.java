@@ -36,6 +36,16 @@ public class Util {
 		}
 	}
 
+	/** Returns true if the class can be loaded, eg to check whether classes from a later Java version are present. */
+	static public boolean isClassAvailable (String className) {
+		try {
+			Class.forName(className, false, Util.class.getClassLoader());
+			return true;
+		} catch (Throwable ignored) {
+			return false;
+		}
+	}
+
 	/** Returns the primitive wrapper class for a primitive class.
 	 * @param type Must be a primitive class. */
 	static public Class getWrapperClass (Class type) {
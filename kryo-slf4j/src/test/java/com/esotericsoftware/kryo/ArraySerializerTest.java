@@ -19,7 +19,12 @@
 
 package com.esotericsoftware.kryo;
 
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DeltaIntArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DeltaLongArraySerializer;
 import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ObjectArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.PackedBooleanArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorDoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorFloatArraySerializer;
 
 /** @author Nathan Sweet <misc@n4te.com> */
 public class ArraySerializerTest extends KryoTestCase {
@@ -69,4 +74,57 @@ public class ArraySerializerTest extends KryoTestCase {
 		array[3] = new Float[] {3.0f};
 		roundTrip(31, 31, array);
 	}
+
+	public void testDeltaArrays () {
+		kryo.register(int[].class, new DeltaIntArraySerializer());
+		kryo.register(long[].class, new DeltaLongArraySerializer());
+		roundTrip(2, 2, new int[0]);
+		roundTrip(5, 5, new int[] {1, 2, 3, 4});
+		roundTrip(5, 5, new int[] {-1, -2, -3, -4});
+		roundTrip(10, 10, new long[] {1400000000000L, 1400000000001L, 1400000000002L, 1400000000003L});
+
+		int[] timestamps = new int[1000];
+		long[] ids = new long[1000];
+		ids[0] = Long.MIN_VALUE / 2;
+		for (int i = 1; i < timestamps.length; i++) {
+			timestamps[i] = timestamps[i - 1] + 1000 + i % 7;
+			ids[i] = ids[i - 1] + (i % 3) - 1;
+		}
+		// Deltas of 11 bits: 3 + 1 + 7 * (1 + 128 * 11 / 8) + (1 + 103 * 11 / 8) bytes.
+		roundTrip(1386, 1386, timestamps);
+		// The first value is a 9 byte varint, the deltas take 2 bits: 3 + 9 + 7 * (1 + 128 * 2 / 8) + (1 + 103 * 2 / 8) bytes.
+		roundTrip(270, 270, ids);
+	}
+
+	public void testPackedBooleanArray () {
+		kryo.register(boolean[].class, new PackedBooleanArraySerializer());
+		roundTrip(2, 2, new boolean[0]);
+		roundTrip(3, 3, new boolean[] {true, false, true});
+		roundTrip(3, 3, new boolean[] {true, true, true, true, true, true, true, true});
+		boolean[] flags = new boolean[1000];
+		for (int i = 0; i < flags.length; i++)
+			flags[i] = i % 3 == 0;
+		roundTrip(128, 128, flags);
+	}
+
+	public void testXorArrays () {
+		kryo.register(double[].class, new XorDoubleArraySerializer());
+		kryo.register(float[].class, new XorFloatArraySerializer());
+		roundTrip(2, 2, new double[0]);
+		roundTrip(11, 11, new double[] {1.5, 1.5, 1.5, 1.5});
+		roundTrip(7, 7, new float[] {1.5f, 1.5f, 1.5f, 1.5f});
+		roundTrip(51, 51, new double[] {0, -0d, Double.NaN, Double.MIN_VALUE, Double.MAX_VALUE, Double.NEGATIVE_INFINITY, 1});
+		roundTrip(30, 30, new float[] {0, -0f, Float.NaN, Float.MIN_VALUE, Float.MAX_VALUE, Float.NEGATIVE_INFINITY, 1});
+
+		// A slowly changing series, as from a sensor.
+		double[] doubles = new double[1000];
+		float[] floats = new float[1000];
+		for (int i = 0; i < doubles.length; i++) {
+			doubles[i] = 20 + Math.round(Math.sin(i / 100d) * 10) / 10d;
+			floats[i] = (float)doubles[i];
+		}
+		// 8002 and 4002 bytes with the default serializers.
+		roundTrip(591, 591, doubles);
+		roundTrip(321, 321, floats);
+	}
 }
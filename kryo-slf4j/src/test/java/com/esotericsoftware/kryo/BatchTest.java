@@ -0,0 +1,99 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class BatchTest extends KryoTestCase {
+	public void testArray () {
+		String[] strings = {"a", null, "bc"};
+		Output output = new Output(64);
+		kryo.writeObjects(output, String.class, strings);
+		assertEquals(6, output.position());
+		String[] read = kryo.readObjects(new Input(output.toBytes()), String.class);
+		assertEquals(strings, read);
+		assertEquals(0, kryo.getDepth());
+	}
+
+	public void testPrimitiveType () {
+		Output output = new Output(64);
+		kryo.writeObjects(output, int.class, new Integer[] {1, 2, 300});
+		Integer[] read = kryo.readObjects(new Input(output.toBytes()), int.class);
+		assertEquals(new Integer[] {1, 2, 300}, read);
+	}
+
+	public void testCollection () {
+		kryo.register(Message.class);
+		ArrayList messages = list(new Message(1, "one"), null, new Message(2, "two"));
+		Output output = new Output(64);
+		kryo.writeObjects(output, Message.class, messages);
+		ArrayList read = new ArrayList();
+		read.add(new Message(0, "zero"));
+		assertEquals(3, kryo.readObjects(new Input(output.toBytes()), Message.class, read));
+		assertEquals(4, read.size());
+		assertEquals(messages, read.subList(1, 4));
+	}
+
+	/** The batch is a single object graph, so an object is written once however many times it appears. */
+	public void testReferences () {
+		kryo.register(Message.class);
+		kryo.setReferences(true);
+		Message message = new Message(1, "one");
+		Output output = new Output(64);
+		kryo.writeObjects(output, Message.class, new Message[] {message, message, new Message(2, "two")});
+		Message[] read = kryo.readObjects(new Input(output.toBytes()), Message.class);
+		assertEquals(3, read.length);
+		assertSame(read[0], read[1]);
+		assertEquals(message, read[0]);
+		assertEquals(new Message(2, "two"), read[2]);
+
+		// References don't span batches.
+		output.clear();
+		kryo.writeObjects(output, Message.class, new Message[] {message});
+		read = kryo.readObjects(new Input(output.toBytes()), Message.class);
+		assertEquals(message, read[0]);
+	}
+
+	static public class Message {
+		public int id;
+		public String text;
+
+		public Message () {
+		}
+
+		public Message (int id, String text) {
+			this.id = id;
+			this.text = text;
+		}
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Message)) return false;
+			Message other = (Message)obj;
+			return id == other.id && (text == null ? other.text == null : text.equals(other.text));
+		}
+
+		public int hashCode () {
+			return id;
+		}
+	}
+}
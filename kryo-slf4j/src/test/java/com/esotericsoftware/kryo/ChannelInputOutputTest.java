@@ -0,0 +1,131 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.ChannelInput;
+import com.esotericsoftware.kryo.io.ChannelOutput;
+
+public class ChannelInputOutputTest extends KryoTestCase {
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.setRegistrationRequired(false);
+	}
+
+	public void testFileChannel () throws IOException {
+		File file = File.createTempFile("kryo", ".bin");
+		file.deleteOnExit();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		FileChannel channel = raf.getChannel();
+
+		byte[] large = new byte[1000];
+		for (int i = 0; i < large.length; i++)
+			large[i] = (byte)i;
+
+		ChannelOutput output = new ChannelOutput(channel, 16);
+		for (int i = 0; i < 100; i++) {
+			output.writeInt(i, true);
+			output.writeString("value" + i);
+		}
+		output.writeBytes(large);
+		output.writeLong(1234567890123L);
+		ArrayList list = list("a", 1, 2.5d);
+		kryo.writeClassAndObject(output, list);
+		output.flush();
+		assertEquals(channel.size(), output.total());
+
+		channel.position(0);
+		ChannelInput input = new ChannelInput(channel, 16);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, input.readInt(true));
+			assertEquals("value" + i, input.readString());
+		}
+		assertEquals(large, input.readBytes(large.length));
+		assertEquals(1234567890123L, input.readLong());
+		assertEquals(list, kryo.readClassAndObject(input));
+		assertTrue(input.eof());
+		assertEquals(channel.size(), input.total());
+		input.close();
+		assertFalse(channel.isOpen());
+	}
+
+	public void testReadByteBuffer () throws IOException {
+		File file = File.createTempFile("kryo", ".bin");
+		file.deleteOnExit();
+		FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+
+		byte[] small = new byte[40], large = new byte[100];
+		for (int i = 0; i < small.length; i++)
+			small[i] = (byte)i;
+		for (int i = 0; i < large.length; i++)
+			large[i] = (byte)(i * 3);
+		ChannelOutput output = new ChannelOutput(channel, 64);
+		output.writeBytes(small);
+		output.writeBytes(large);
+		output.writeBytes(small);
+		output.flush();
+
+		channel.position(0);
+		ChannelInput input = new ChannelInput(channel, 64);
+		ByteBuffer first = input.readByteBuffer(small.length);
+		assertEquals(large, input.readBytes(large.length));
+		// The buffer stays valid after the input's buffer has been refilled.
+		assertTrue(first.isReadOnly());
+		assertEquals(ByteBuffer.wrap(small), first);
+
+		// Lengths larger than the input's buffer.
+		channel.position(small.length);
+		input.setChannel(channel);
+		ByteBuffer second = input.readByteBuffer(large.length);
+		ByteBuffer third = input.readByteBuffer(small.length);
+		assertTrue(input.eof());
+		input.close();
+		assertEquals(ByteBuffer.wrap(large), second);
+		assertEquals(ByteBuffer.wrap(small), third);
+	}
+
+	public void testPipe () throws Exception {
+		final Pipe pipe = Pipe.open();
+		final int count = 10000;
+		Thread writer = new Thread() {
+			public void run () {
+				ChannelOutput output = new ChannelOutput(pipe.sink(), 64);
+				for (int i = 0; i < count; i++)
+					output.writeVarLong(i * 31L, false);
+				output.close();
+			}
+		};
+		writer.start();
+
+		ChannelInput input = new ChannelInput(pipe.source(), 32);
+		for (int i = 0; i < count; i++)
+			assertEquals(i * 31L, input.readVarLong(false));
+		assertTrue(input.eof());
+		input.close();
+		writer.join();
+	}
+}
@@ -0,0 +1,137 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.ClosureSerializer;
+import com.esotericsoftware.kryo.util.Util;
+
+/** The tests are compiled for Java 5 and can't contain lambdas, so the lambdas are compiled from source when the tests run on
+ * Java 8 or later. The tests do nothing when no compiler is available. */
+public class ClosureSerializerTest extends KryoTestCase {
+	static private final String fixtureSource = "import java.io.Serializable;\n" //
+		+ "import java.util.concurrent.Callable;\n" //
+		+ "public class ClosureFixture {\n" //
+		+ "	public static Callable<Integer> add (int a, int b) {\n" //
+		+ "		return (Callable<Integer> & Serializable)() -> a + b;\n" //
+		+ "	}\n" //
+		+ "	public static Callable<Integer> constant () {\n" //
+		+ "		return (Callable<Integer> & Serializable)() -> 42;\n" //
+		+ "	}\n" //
+		+ "	public static Callable<String> upperCase (String value) {\n" //
+		+ "		return (Callable<String> & Serializable)value::toUpperCase;\n" //
+		+ "	}\n" //
+		+ "}\n";
+
+	private Class fixture;
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.register(Object[].class);
+		kryo.register(ClosureSerializer.Closure.class, new ClosureSerializer());
+		fixture = compileFixture();
+		if (fixture != null) kryo.setClassLoader(fixture.getClassLoader());
+	}
+
+	private Class compileFixture () throws Exception {
+		if (!Util.isClassAvailable("java.lang.invoke.SerializedLambda")) return null;
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) return null;
+		File dir = File.createTempFile("kryo", "");
+		dir.delete();
+		dir.mkdir();
+		dir.deleteOnExit();
+		File file = new File(dir, "ClosureFixture.java");
+		file.deleteOnExit();
+		new File(dir, "ClosureFixture.class").deleteOnExit();
+		FileWriter writer = new FileWriter(file);
+		writer.write(fixtureSource);
+		writer.close();
+		assertEquals(0, compiler.run(null, null, null, "-d", dir.getPath(), file.getPath()));
+		ClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader());
+		return loader.loadClass("ClosureFixture");
+	}
+
+	private Callable closure (String name, Object... args) throws Exception {
+		Class[] types = new Class[args.length];
+		for (int i = 0; i < args.length; i++)
+			types[i] = args[i] instanceof Integer ? int.class : args[i].getClass();
+		return (Callable)fixture.getMethod(name, types).invoke(null, args);
+	}
+
+	public void testRoundTrip () throws Exception {
+		if (fixture == null) return;
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, closure("add", 1, 2));
+		kryo.writeClassAndObject(output, closure("constant"));
+		kryo.writeClassAndObject(output, closure("upperCase", "abc"));
+		Input input = new Input(output.toBytes());
+		assertEquals(3, ((Callable)kryo.readClassAndObject(input)).call());
+		assertEquals(42, ((Callable)kryo.readClassAndObject(input)).call());
+		assertEquals("ABC", ((Callable)kryo.readClassAndObject(input)).call());
+		assertTrue(input.eof());
+	}
+
+	/** The descriptor of a lambda class is written the first time it is seen in a graph, later only its ID is written. */
+	public void testRepeated () throws Exception {
+		if (fixture == null) return;
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, new Object[] {closure("add", 1, 2)});
+		int add = output.position() - 2;
+		output = new Output(1024);
+		kryo.writeClassAndObject(output, new Object[] {closure("constant")});
+		int constant = output.position() - 2;
+
+		Object[] closures = {closure("add", 1, 2), closure("constant"), closure("add", 3, 4), closure("add", 5, 6),
+			closure("constant")};
+		output = new Output(1024);
+		kryo.writeClassAndObject(output, closures);
+		// A repeated closure is written as its class, ID, captured arg count and captured args.
+		assertEquals(2 + add + constant + 7 + 7 + 3, output.position());
+
+		Object[] read = (Object[])kryo.readClassAndObject(new Input(output.toBytes()));
+		assertEquals(5, read.length);
+		assertEquals(3, ((Callable)read[0]).call());
+		assertEquals(42, ((Callable)read[1]).call());
+		assertEquals(7, ((Callable)read[2]).call());
+		assertEquals(11, ((Callable)read[3]).call());
+		assertEquals(42, ((Callable)read[4]).call());
+		assertSame(read[0].getClass(), read[2].getClass());
+	}
+
+	public void testCopy () throws Exception {
+		if (fixture == null) return;
+		Callable original = closure("add", 1, 2);
+		Callable copy = kryo.copy(original);
+		assertNotSame(original, copy);
+		assertEquals(3, copy.call());
+		assertEquals("ABC", kryo.copy(closure("upperCase", "abc")).call());
+	}
+}
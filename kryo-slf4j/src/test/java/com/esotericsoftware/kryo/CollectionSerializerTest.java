@@ -26,8 +26,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.esotericsoftware.kryo.MapSerializerTest.KeyComparator;
 import com.esotericsoftware.kryo.MapSerializerTest.KeyThatIsntComparable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.CollectionSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers.StringSerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import java.util.Comparator;
 
 /** @author Nathan Sweet <misc@n4te.com> */
@@ -82,6 +85,54 @@ public class CollectionSerializerTest extends KryoTestCase {
 		roundTrip(11, 23, set);
 	}
 
+	/** Generic types are kept per Kryo instance, so a serializer can be shared. */
+	public void testSharedSerializer () {
+		CollectionSerializer serializer = new CollectionSerializer();
+		kryo.register(ArrayList.class, serializer);
+		Kryo kryo2 = new Kryo();
+		kryo2.setReferences(false);
+		kryo2.register(ArrayList.class, serializer);
+
+		serializer.setGenerics(kryo2, new Class[] {String.class});
+		roundTrip(11, 11, list("1", "2", "3"));
+
+		Output output = new Output(32);
+		kryo2.writeObject(output, list("1", "2", "3"));
+		assertEquals(7, output.position());
+		Input input = new Input(output.toBytes());
+		serializer.setGenerics(kryo2, new Class[] {String.class});
+		assertEquals(list("1", "2", "3"), kryo2.readObject(input, ArrayList.class));
+	}
+
+	/** Generic types stored for a null field must not be used by the next object. */
+	public void testNullFieldGenerics () {
+		kryo.register(ArrayList.class);
+		FieldSerializer serializer = new FieldSerializer(kryo, HasNullList.class);
+		serializer.getField("list").setClass(ArrayList.class);
+		kryo.register(HasNullList.class, serializer);
+		Output output = new Output(64);
+		kryo.writeObject(output, new HasNullList());
+		kryo.writeClassAndObject(output, list(1, 2, 3));
+		Input input = new Input(output.toBytes());
+		assertNull(kryo.readObject(input, HasNullList.class).list);
+		assertEquals(list(1, 2, 3), kryo.readClassAndObject(input));
+	}
+
+	public void testUnusedGenerics () {
+		new CollectionSerializer().setGenerics(kryo, new Class[] {String.class});
+		try {
+			new CollectionSerializer().setGenerics(kryo, new Class[] {String.class});
+			fail();
+		} catch (KryoException expected) {
+		}
+		kryo.reset();
+		new CollectionSerializer().setGenerics(kryo, new Class[] {String.class});
+	}
+
+	static public class HasNullList {
+		public ArrayList<String> list;
+	}
+
 	static public class TreeSetSubclass<E> extends TreeSet<E> {
 		public TreeSetSubclass() {
 		}
@@ -0,0 +1,161 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.ColumnarCollectionSerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+
+public class ColumnarCollectionSerializerTest extends KryoTestCase {
+	{
+		supportsCopy = true;
+	}
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.register(Quote.class);
+		kryo.register(Integer.class);
+	}
+
+	public void testColumns () {
+		kryo.register(ArrayList.class, new ColumnarCollectionSerializer(Quote.class));
+		kryo.register(LinkedList.class, new ColumnarCollectionSerializer(Quote.class));
+		roundTrip(2, 2, new ArrayList());
+		ArrayList quotes = quotes(1000);
+		ArrayList columns = roundTrip(12527, 14027, quotes);
+		assertEquals(ArrayList.class, columns.getClass());
+		roundTrip(160, 175, new LinkedList(quotes(10)));
+
+		// Each row through the FieldSerializer.
+		kryo.register(ArrayList.class, new CollectionSerializer(Quote.class, kryo.getSerializer(Quote.class), false));
+		Output output = new Output(4096, -1);
+		kryo.writeObject(output, quotes);
+		assertEquals(38502, output.position());
+	}
+
+	public void testInvalidElements () {
+		kryo.register(ArrayList.class, new ColumnarCollectionSerializer(Quote.class));
+		Output output = new Output(4096, -1);
+		ArrayList list = quotes(2);
+		list.add(null);
+		try {
+			kryo.writeObject(output, list);
+			fail();
+		} catch (KryoException expected) {
+		}
+		list.set(2, "ABC");
+		try {
+			kryo.writeObject(output, list);
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	public void testTransientFields () {
+		FieldSerializer serializer = new FieldSerializer(kryo, Tagged.class);
+		kryo.register(Tagged.class, serializer);
+		kryo.register(ArrayList.class, new ColumnarCollectionSerializer(Tagged.class));
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < 3; i++) {
+			Tagged tagged = new Tagged();
+			tagged.id = i;
+			tagged.hits = i * 10;
+			tagged.note = "n" + i;
+			list.add(tagged);
+		}
+
+		serializer.setSerializeTransient(true);
+		roundTrip(15, 15, list);
+
+		serializer.setSerializeTransient(false);
+		Output output = new Output(4096, -1);
+		kryo.writeObject(output, list);
+		ArrayList read = kryo.readObject(new Input(output.toBytes()), ArrayList.class);
+		Tagged tagged = (Tagged)read.get(2);
+		assertEquals(2, tagged.id);
+		assertEquals(0, tagged.hits);
+		assertNull(tagged.note);
+	}
+
+	private ArrayList quotes (int count) {
+		ArrayList quotes = new ArrayList();
+		double price = 101.25;
+		for (int i = 0; i < count; i++) {
+			Quote quote = new Quote();
+			quote.symbol = i % 3 == 0 ? "ABC" : "XYZ";
+			quote.time = 1400000000000L + i * 250;
+			if (i % 4 == 0) price += (i % 3 - 1) * 0.25;
+			quote.bid = price;
+			quote.ask = price + 0.25;
+			quote.size = 100 * (i % 5 + 1);
+			quote.ratio = 0.5f;
+			quote.active = i % 10 != 0;
+			quote.exchange = 'N';
+			quote.flags = (byte)(i & 3);
+			quote.level = (short)(i % 7);
+			quote.venue = i % 2 == 0 ? null : Integer.valueOf(i % 3);
+			quotes.add(quote);
+		}
+		return quotes;
+	}
+
+	static public class Tagged {
+		int id;
+		transient int hits;
+		transient String note;
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (obj == null || getClass() != obj.getClass()) return false;
+			Tagged other = (Tagged)obj;
+			if (note == null ? other.note != null : !note.equals(other.note)) return false;
+			return id == other.id && hits == other.hits;
+		}
+	}
+
+	static public class Quote {
+		String symbol;
+		long time;
+		double bid, ask;
+		int size;
+		float ratio;
+		boolean active;
+		char exchange;
+		byte flags;
+		short level;
+		Integer venue;
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (obj == null || getClass() != obj.getClass()) return false;
+			Quote other = (Quote)obj;
+			if (symbol == null ? other.symbol != null : !symbol.equals(other.symbol)) return false;
+			if (venue == null ? other.venue != null : !venue.equals(other.venue)) return false;
+			return time == other.time && Double.doubleToLongBits(bid) == Double.doubleToLongBits(other.bid)
+				&& Double.doubleToLongBits(ask) == Double.doubleToLongBits(other.ask) && size == other.size
+				&& Float.floatToIntBits(ratio) == Float.floatToIntBits(other.ratio) && active == other.active
+				&& exchange == other.exchange && flags == other.flags && level == other.level;
+		}
+	}
+}
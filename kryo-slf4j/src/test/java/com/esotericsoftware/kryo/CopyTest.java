@@ -148,7 +148,95 @@ public class CopyTest extends KryoTestCase {
 		assertEquals(test, copy);
 	}
 
+	public void testCopyPlans () {
+		kryo.setCopyPlansEnabled(true);
+
+		Point point = new Point();
+		point.x = 1;
+		point.y = 2.5;
+		point.flag = true;
+		Point pointCopy = kryo.copy(point);
+		assertTrue(point != pointCopy);
+		assertEquals(point, pointCopy);
+
+		int[] ints = {1, 2, 3, 4, 5};
+		int[] intsCopy = kryo.copy(ints);
+		assertTrue(ints != intsCopy);
+		assertEquals(ints, intsCopy);
+
+		Shape shape = new Shape();
+		shape.name = "triangle";
+		shape.points = new Point[] {point, point, new Point()};
+		shape.weights = new double[] {1.5, 2.5};
+		shape.same = shape.weights;
+		shape.parent = shape;
+		Shape shapeCopy = kryo.copy(shape);
+		assertTrue(shape != shapeCopy);
+		assertTrue(shape.name == shapeCopy.name);
+		assertTrue(shapeCopy.parent == shapeCopy);
+		assertTrue(shapeCopy.points[0] != point);
+		assertTrue(shapeCopy.points[0] == shapeCopy.points[1]);
+		assertEquals(point, shapeCopy.points[0]);
+		assertTrue(shapeCopy.weights != shape.weights);
+		assertTrue(shapeCopy.weights == shapeCopy.same);
+		assertEquals(shape.weights, shapeCopy.weights);
+
+		kryo.setCopyReferences(false);
+		shape.parent = null;
+		shapeCopy = kryo.copy(shape);
+		assertTrue(shapeCopy.points[0] != shapeCopy.points[1]);
+		assertTrue(shapeCopy.weights != shapeCopy.same);
+		assertEquals(shape.same, shapeCopy.same);
+	}
+
+	public void testCopyPlansWithCollections () {
+		kryo.setCopyPlansEnabled(true);
+		ArrayList test = new ArrayList();
+		test.add("one");
+		Point point = new Point();
+		point.x = 7;
+		test.add(point);
+		test.add(point);
+		test.add(test);
+
+		ArrayList copy = kryo.copy(test);
+		assertTrue(test != copy);
+		assertTrue(copy.get(0) == test.get(0));
+		assertTrue(copy.get(1) != point);
+		assertTrue(copy.get(1) == copy.get(2));
+		assertEquals(point, copy.get(1));
+		assertTrue(copy.get(3) == copy);
+	}
+
+	public void testCopyPlanImmutableSerializer () {
+		kryo.setCopyPlansEnabled(true);
+		Point point = new Point();
+		assertTrue(kryo.copy(point) != point);
+		kryo.register(Point.class).getSerializer().setImmutable(true);
+		assertTrue(kryo.copy(point) == point);
+	}
+
 	static public class Moo {
 		Moo moo;
 	}
+
+	static public class Point {
+		int x;
+		double y;
+		boolean flag;
+		transient long cached;
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Point)) return false;
+			Point other = (Point)obj;
+			return x == other.x && y == other.y && flag == other.flag && cached == other.cached;
+		}
+	}
+
+	static public class Shape {
+		String name;
+		Point[] points;
+		double[] weights, same;
+		Shape parent;
+	}
 }
@@ -21,7 +21,9 @@ package com.esotericsoftware.kryo;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -30,6 +32,10 @@ import java.util.TimeZone;
 
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.ByteBufferSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.CompactBigDecimalSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.CompactBigIntegerSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.PackedEnumSetSerializer;
 import java.util.Locale;
 
 /** @author Nathan Sweet <misc@n4te.com> */
@@ -209,6 +215,24 @@ public class DefaultSerializersTest extends KryoTestCase {
 		roundTrip(7, 10, new BigDecimalSubclass("12345.12345"));
 	}
 
+	public void testCompactBigDecimalSerializer () {
+		kryo.register(BigDecimal.class, new CompactBigDecimalSerializer());
+		kryo.register(BigDecimalSubclass.class, new CompactBigDecimalSerializer());
+		roundTrip(5, 8, BigDecimal.valueOf(12345, 2));
+		roundTrip(7, 10, new BigDecimal("12345.12345"));
+		roundTrip(7, 10, new BigDecimal("-12345.12345"));
+		roundTrip(3, 6, BigDecimal.TEN);
+		roundTrip(11, 14, new BigDecimal(Long.MAX_VALUE).movePointLeft(4));
+		roundTrip(17, 20, new BigDecimal("123456789012345678901234567890.123"));
+		roundTrip(5, 8, new BigDecimalSubclass(new BigInteger("12345"), 2));
+		roundTrip(7, 10, new BigDecimalSubclass("12345.12345"));
+		roundTrip(17, 20, new BigDecimalSubclass("123456789012345678901234567890.123"));
+
+		// Cached constants are preserved.
+		assertSame(BigDecimal.ZERO, roundTrip(3, 6, BigDecimal.ZERO));
+		assertSame(BigDecimal.ONE, roundTrip(3, 6, BigDecimal.ONE));
+	}
+
 	public void testBigIntegerSerializer () {
 		kryo.register(BigInteger.class);
 		kryo.register(BigIntegerSubclass.class);
@@ -219,6 +243,25 @@ public class DefaultSerializersTest extends KryoTestCase {
 		roundTrip(8, 8, new BigIntegerSubclass("1270507903945"));
 	}
 
+	public void testCompactBigIntegerSerializer () {
+		kryo.register(BigInteger.class, new CompactBigIntegerSerializer());
+		kryo.register(BigIntegerSubclass.class, new CompactBigIntegerSerializer());
+		roundTrip(8, 8, BigInteger.valueOf(1270507903945L));
+		roundTrip(8, 8, BigInteger.valueOf(-1270507903945L));
+		roundTrip(2, 2, BigInteger.TEN);
+		roundTrip(10, 10, BigInteger.valueOf(Long.MAX_VALUE >> 1));
+		roundTrip(10, 10, BigInteger.valueOf(Long.MIN_VALUE >> 1));
+		roundTrip(10, 10, BigInteger.valueOf(Long.MAX_VALUE));
+		roundTrip(10, 10, BigInteger.valueOf(Long.MIN_VALUE));
+		roundTrip(15, 15, new BigInteger("123456789012345678901234567890"));
+		roundTrip(8, 8, new BigIntegerSubclass("1270507903945"));
+		roundTrip(15, 15, new BigIntegerSubclass("123456789012345678901234567890"));
+
+		// Cached constants are preserved.
+		assertSame(BigInteger.ZERO, roundTrip(2, 2, BigInteger.ZERO));
+		assertSame(BigInteger.ONE, roundTrip(2, 2, BigInteger.ONE));
+	}
+
 	public void testEnumSerializer () {
 		kryo.register(TestEnum.class);
 		roundTrip(2, 2, TestEnum.a);
@@ -250,6 +293,30 @@ public class DefaultSerializersTest extends KryoTestCase {
 		roundTrip(89, 92, EnumSet.of(TestEnum.a, TestEnum.c));
 	}
 
+	public void testPackedEnumSetSerializer () {
+		kryo.register(EnumSet.class, new PackedEnumSetSerializer());
+		kryo.register(TestEnum.class);
+		kryo.register(TestEnumWithMethods.class);
+		roundTrip(4, 4, EnumSet.of(TestEnum.a, TestEnum.c));
+		roundTrip(4, 4, EnumSet.allOf(TestEnum.class));
+		roundTrip(3, 3, EnumSet.noneOf(TestEnum.class));
+		roundTrip(4, 4, EnumSet.of(TestEnumWithMethods.b));
+	}
+
+	public void testBitSetSerializer () {
+		kryo.register(BitSet.class);
+		roundTrip(2, 2, new BitSet());
+		BitSet bits = new BitSet();
+		bits.set(0);
+		bits.set(63);
+		roundTrip(10, 10, bits);
+		bits.set(100, 300);
+		bits.set(1000);
+		roundTrip(130, 130, bits);
+		supportsCopy = true;
+		roundTrip(130, 130, bits);
+	}
+
 	public void testEnumSerializerWithMethods () {
 		kryo.register(TestEnumWithMethods.class);
 		roundTrip(2, 2, TestEnumWithMethods.a);
@@ -342,6 +409,38 @@ public class DefaultSerializersTest extends KryoTestCase {
 		roundTrip(16, 16, new Locale("es", "ES", "áéíóú"));		
 	}
 
+	public void testByteBufferSerializer () {
+		kryo.register(ByteBuffer.allocate(0).getClass());
+		kryo.register(ByteBuffer.allocateDirect(0).getClass());
+		ByteBuffer heap = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5});
+		heap.position(1);
+		roundTrip(6, 6, heap);
+		assertEquals(1, heap.position());
+		ByteBuffer direct = ByteBuffer.allocateDirect(1000);
+		for (int i = 0; i < 1000; i++)
+			direct.put((byte)i);
+		direct.flip();
+		assertTrue(roundTrip(1003, 1003, direct).isDirect());
+		assertFalse(roundTrip(2, 2, ByteBuffer.allocate(0)).isDirect());
+	}
+
+	public void testByteBufferZeroCopy () {
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		serializer.setZeroCopy(true);
+		Class type = ByteBuffer.allocate(0).getClass();
+		kryo.register(type, serializer);
+		Output output = new Output(64);
+		kryo.writeObject(output, ByteBuffer.wrap(new byte[] {1, 2, 3}));
+		byte[] bytes = output.toBytes();
+
+		ByteBuffer buffer = (ByteBuffer)kryo.readObject(new Input(bytes), type);
+		assertTrue(buffer.isReadOnly());
+		assertEquals(ByteBuffer.wrap(new byte[] {1, 2, 3}), buffer);
+		// The buffer is a view of the input's bytes.
+		bytes[2] = 9;
+		assertEquals(9, buffer.get(1));
+	}
+
 	public enum TestEnum {
 		a, b, c
 	}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers.StringSerializer;
+import com.esotericsoftware.kryo.serializers.DictionarySerializer;
+
+public class DictionarySerializerTest extends KryoTestCase {
+	private Kryo reader;
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		reader = new Kryo();
+		reader.setReferences(false);
+	}
+
+	private void register (int capacity) {
+		kryo.register(String.class, new DictionarySerializer(new StringSerializer(), capacity));
+		reader.register(String.class, new DictionarySerializer(new StringSerializer(), capacity));
+		kryo.register(ArrayList.class);
+		reader.register(ArrayList.class);
+	}
+
+	public void testRepeatedValues () {
+		register(16);
+		Output output = new Output(4096);
+		kryo.writeObject(output, list("USD", "EUR", "USD"));
+		int first = output.position();
+		kryo.writeObject(output, list("USD", "EUR", "USD"));
+		int second = output.position() - first;
+		// Size, 3 class IDs and 3 dictionary IDs.
+		assertEquals(7, second);
+		kryo.writeObjectOrNull(output, null, String.class);
+		kryo.writeObjectOrNull(output, "EUR", String.class);
+
+		Input input = new Input(output.toBytes());
+		assertEquals(list("USD", "EUR", "USD"), reader.readObject(input, ArrayList.class));
+		assertEquals(list("USD", "EUR", "USD"), reader.readObject(input, ArrayList.class));
+		assertNull(reader.readObjectOrNull(input, String.class));
+		assertEquals("EUR", reader.readObjectOrNull(input, String.class));
+		assertTrue(input.eof());
+	}
+
+	public void testEviction () {
+		register(8);
+		Random random = new Random(42);
+		Output output = new Output(1024, -1);
+		ArrayList messages = new ArrayList();
+		for (int i = 0; i < 2000; i++) {
+			String value = "symbol" + random.nextInt(12);
+			messages.add(value);
+			kryo.writeObject(output, value);
+		}
+		Input input = new Input(output.toBytes());
+		for (int i = 0; i < messages.size(); i++)
+			assertEquals(messages.get(i), reader.readObject(input, String.class));
+	}
+
+	public void testReset () {
+		register(8);
+		DictionarySerializer writeSerializer = (DictionarySerializer)kryo.getSerializer(String.class);
+		DictionarySerializer readSerializer = (DictionarySerializer)reader.getSerializer(String.class);
+		Output output = new Output(1024);
+		kryo.writeObject(output, "value");
+		kryo.writeObject(output, "value");
+		Input input = new Input(output.toBytes());
+		assertEquals("value", reader.readObject(input, String.class));
+		assertEquals("value", reader.readObject(input, String.class));
+
+		writeSerializer.reset(kryo);
+		readSerializer.reset(reader);
+		output.clear();
+		kryo.writeObject(output, "value");
+		assertEquals(6, output.position());
+		input = new Input(output.toBytes());
+		assertEquals("value", reader.readObject(input, String.class));
+
+		// An ID the reader has not seen fails.
+		output.clear();
+		kryo.writeObject(output, "value");
+		readSerializer.reset(reader);
+		input = new Input(output.toBytes());
+		try {
+			reader.readObject(input, String.class);
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+}
@@ -43,6 +43,8 @@ import com.esotericsoftware.kryo.serializers.FieldSerializer.Optional;
 import com.esotericsoftware.kryo.serializers.MapSerializer;
 import com.esotericsoftware.kryo.serializers.CollectionSerializer;
 import com.esotericsoftware.kryo.serializers.MapSerializer.BindMap;
+import com.esotericsoftware.kryo.util.LambdaInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Util;
 
 /** @author Nathan Sweet <misc@n4te.com> */
 public class FieldSerializerTest extends KryoTestCase {
@@ -391,7 +393,102 @@ public class FieldSerializerTest extends KryoTestCase {
 		assertEquals("Default constructor should not be invoked with StdInstantiatorStrategy strategy", 0,
 			HasPrivateConstructor.invocations);
 	}
-	
+
+	public void testLambdaInstantiatorStrategy () {
+		if (!Util.isClassAvailable("java.lang.invoke.LambdaMetafactory")) return;
+		kryo.setInstantiatorStrategy(new LambdaInstantiatorStrategy(new StdInstantiatorStrategy()));
+
+		kryo.register(HasStringField.class);
+		assertTrue(LambdaInstantiatorStrategy.isBound(HasStringField.class));
+		HasStringField hasStringField = new HasStringField();
+		hasStringField.text = "cow";
+		roundTrip(4, 4, hasStringField);
+
+		// Classes without a public no-arg constructor use the fallback strategy.
+		kryo.register(HasArgumentConstructor.class);
+		assertFalse(LambdaInstantiatorStrategy.isBound(HasArgumentConstructor.class));
+		roundTrip(4, 4, new HasArgumentConstructor("cow"));
+
+		kryo.register(HasPrivateConstructor.class);
+		assertFalse(LambdaInstantiatorStrategy.isBound(HasPrivateConstructor.class));
+		HasPrivateConstructor.invocations = 0;
+		roundTrip(4, 4, new HasPrivateConstructor());
+		assertEquals(1, HasPrivateConstructor.invocations);
+	}
+
+	private void registerChain () {
+		FieldSerializer serializer = new FieldSerializer(kryo, Link.class);
+		serializer.setIterativeChains(true);
+		kryo.register(Link.class, serializer);
+	}
+
+	public void testChain () {
+		registerChain();
+		Link link = new Link(1, new Link(2, new Link(3, null)));
+		roundTrip(10, 19, link);
+		link.next.next.next = new Link(4, null);
+		roundTrip(13, 25, link);
+	}
+
+	/** Without iterative chains, the chain field is written in field order. */
+	public void testChainDisabled () {
+		kryo.register(Link.class);
+		assertFalse(((FieldSerializer)kryo.getSerializer(Link.class)).getIterativeChains());
+		Link link = new Link(1, new Link(2, null));
+		Output output = new Output(64);
+		kryo.writeObject(output, link);
+		// next (Link class ID, then Link 2's next, other and value), other (null), value (1).
+		assertEquals(new byte[] {12, 0, 0, 4, 0, 2}, output.toBytes());
+		assertEquals(link, kryo.readObject(new Input(output.toBytes()), Link.class));
+	}
+
+	/** A chain of 10 million links, much longer than the default stack allows for recursive serialization, is written and read in
+	 * a loop. */
+	public void testLongChain () {
+		registerChain();
+		kryo.setMaxDepth(16);
+		int count = 10000000;
+		Link first = new Link(0, null), link = first;
+		for (int i = 1; i < count; i++)
+			link = link.next = new Link(i, null);
+
+		Output output = new Output(4096, -1);
+		kryo.writeObject(output, first);
+		first = null;
+		link = null;
+		Input input = new Input(output.getBuffer(), 0, output.position());
+		link = kryo.readObject(input, Link.class);
+		for (int i = 0; i < count; i++, link = link.next)
+			assertEquals(i, link.value);
+		assertNull(link);
+		assertEquals(0, kryo.getDepth());
+	}
+
+	public void testChainReferences () {
+		registerChain();
+		kryo.setReferences(true);
+		Link first = new Link(1, null);
+		Link second = first.next = new Link(2, null);
+		Link third = second.next = new Link(3, null);
+		third.next = first;
+		second.other = third;
+		third.other = second;
+
+		Output output = new Output(4096, -1);
+		kryo.writeObject(output, first);
+		Input input = new Input(output.toBytes());
+		first = kryo.readObject(input, Link.class);
+		second = first.next;
+		third = second.next;
+		assertEquals(1, first.value);
+		assertEquals(2, second.value);
+		assertEquals(3, third.value);
+		assertSame(first, third.next);
+		assertSame(third, second.other);
+		assertSame(second, third.other);
+		assertNull(first.other);
+	}
+
 	public void testGenericTypes () {
 		kryo = new Kryo();
 		kryo.setRegistrationRequired(true);
@@ -905,6 +1002,29 @@ public class FieldSerializerTest extends KryoTestCase {
 		}
 	}
 
+	static public class Link {
+		public int value;
+		public Link next;
+		public Link other;
+
+		public Link () {
+		}
+
+		public Link (int value, Link next) {
+			this.value = value;
+			this.next = next;
+		}
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (obj == null || getClass() != obj.getClass()) return false;
+			Link other = (Link)obj;
+			if (value != other.value) return false;
+			if (next == null) return other.next == null;
+			return next.equals(other.next);
+		}
+	}
+
 	static public class HasGenerics {
 		ArrayList<Integer> list1;
 		List<List<?>> list2 = new ArrayList<List<?>>();
@@ -0,0 +1,147 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.FrameDecoder;
+import com.esotericsoftware.kryo.io.FrameOutput;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.util.ByteArrayPool;
+
+public class FrameTest extends KryoTestCase {
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.setRegistrationRequired(false);
+	}
+
+	public void testPartialBuffers () {
+		FrameOutput output = new FrameOutput(16, -1);
+		for (int i = 0; i < 50; i++) {
+			output.beginFrame();
+			kryo.writeClassAndObject(output, list("frame" + i, i));
+			output.endFrame();
+		}
+		output.beginFrame();
+		output.writeString("unfinished");
+		assertEquals(output.pending(), output.position() - 14);
+
+		ByteArrayPool pool = new ByteArrayPool(8, 4);
+		FrameDecoder decoder = new FrameDecoder(pool, 1024);
+		byte[] bytes = output.toBytes();
+		int frames = 0;
+		for (int i = 0, n = output.pending(); i < n;) {
+			// Feed the bytes in uneven pieces.
+			int count = Math.min(n - i, 1 + i % 7);
+			decoder.add(ByteBuffer.wrap(bytes, i, count));
+			i += count;
+			Input input;
+			while ((input = decoder.next()) != null) {
+				assertEquals(list("frame" + frames, frames), kryo.readClassAndObject(input));
+				assertTrue(input.eof());
+				frames++;
+			}
+		}
+		assertEquals(50, frames);
+		assertEquals(0, decoder.available());
+		assertEquals(1, pool.getFree());
+
+		int fed = output.pending();
+		output.endFrame();
+		decoder.add(output.getBuffer(), fed, output.position() - fed);
+		assertEquals("unfinished", decoder.next().readString());
+		assertNull(decoder.next());
+	}
+
+	public void testUnderflow () {
+		FrameOutput output = new FrameOutput(16, -1);
+		output.beginFrame();
+		output.writeInt(1);
+		output.endFrame();
+		FrameDecoder decoder = new FrameDecoder(16, 16);
+		decoder.add(output.getBuffer(), 0, output.position());
+		Input input = decoder.next();
+		assertEquals(1, input.readInt());
+		try {
+			input.readInt();
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	public void testMaxFrameLength () {
+		FrameOutput output = new FrameOutput(16, -1);
+		output.beginFrame();
+		output.writeBytes(new byte[100]);
+		output.endFrame();
+		FrameDecoder decoder = new FrameDecoder(16, 99);
+		try {
+			decoder.add(output.getBuffer(), 0, output.position());
+			decoder.next();
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	public void testNonBlockingPipe () throws Exception {
+		final Pipe pipe = Pipe.open();
+		final int count = 2000;
+		Thread writer = new Thread() {
+			public void run () {
+				Kryo kryo = new Kryo();
+				kryo.setReferences(false);
+				FrameOutput output = new FrameOutput(64, -1);
+				try {
+					for (int i = 0; i < count; i++) {
+						output.beginFrame();
+						kryo.writeClassAndObject(output, list("value" + i, i, new String(new char[i % 300]).replace('\0', 'x')));
+						output.endFrame();
+						if (i % 10 == 9) {
+							while (output.pending() > 0)
+								output.writeTo(pipe.sink());
+						}
+					}
+					while (output.pending() > 0)
+						output.writeTo(pipe.sink());
+					pipe.sink().close();
+				} catch (Exception ex) {
+					throw new RuntimeException(ex);
+				}
+			}
+		};
+		writer.start();
+
+		pipe.source().configureBlocking(false);
+		FrameDecoder decoder = new FrameDecoder(32, 4096);
+		ArrayList values = new ArrayList();
+		while (decoder.read(pipe.source()) != -1) {
+			Input input;
+			while ((input = decoder.next()) != null)
+				values.add(kryo.readClassAndObject(input));
+			if (values.size() < count) Thread.yield();
+		}
+		writer.join();
+		assertEquals(count, values.size());
+		for (int i = 0; i < count; i++)
+			assertEquals(list("value" + i, i, new String(new char[i % 300]).replace('\0', 'x')), values.get(i));
+		assertEquals(0, decoder.available());
+	}
+}
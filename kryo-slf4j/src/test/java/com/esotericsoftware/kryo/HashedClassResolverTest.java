@@ -0,0 +1,149 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.HashedClassResolver;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+
+public class HashedClassResolverTest extends KryoTestCase {
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo = new Kryo(new HashedClassResolver(), new MapReferenceResolver());
+		kryo.setReferences(false);
+		kryo.setRegistrationRequired(true);
+	}
+
+	public void testRegistrationOrder () {
+		kryo.register(ArrayList.class);
+		kryo.register(Point.class);
+		kryo.register(Line.class);
+
+		Kryo reader = new Kryo(new HashedClassResolver(), new MapReferenceResolver());
+		reader.setReferences(false);
+		reader.setRegistrationRequired(true);
+		reader.register(Line.class, 100);
+		reader.register(Point.class);
+		reader.register(ArrayList.class);
+
+		ArrayList list = new ArrayList();
+		list.add(new Point(1, 2));
+		list.add(new Line(new Point(3, 4), new Point(5, 6)));
+		list.add(new Point(7, 8));
+		list.add("text");
+		list.add(9);
+
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, list);
+		// The class is 6 bytes the first time ArrayList, Point and Line are written, then 2 bytes.
+		assertEquals(40, output.position());
+		// Hashes are only valid for a single object graph.
+		kryo.writeClassAndObject(output, list);
+		Input input = new Input(output.toBytes());
+		assertEquals(list, reader.readClassAndObject(input));
+		assertEquals(list, reader.readClassAndObject(input));
+		assertTrue(input.eof());
+
+		roundTrip(40, 67, list);
+	}
+
+	public void testUnregisteredHash () {
+		kryo.register(Point.class);
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, new Point(1, 2));
+
+		Kryo reader = new Kryo(new HashedClassResolver(), new MapReferenceResolver());
+		reader.setRegistrationRequired(true);
+		try {
+			reader.readClassAndObject(new Input(output.toBytes()));
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	public void testUnregisteredName () {
+		kryo.setRegistrationRequired(false);
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, new Point(1, 2));
+		Kryo reader = new Kryo(new HashedClassResolver(), new MapReferenceResolver());
+		reader.setReferences(false);
+		assertEquals(new Point(1, 2), reader.readClassAndObject(new Input(output.toBytes())));
+	}
+
+	public void testCollision () {
+		kryo = new Kryo(new HashedClassResolver() {
+			protected int hash (Class type) {
+				return 1234;
+			}
+		}, new MapReferenceResolver());
+		kryo.register(Point.class);
+		kryo.register(Point.class, 50);
+		try {
+			kryo.register(Line.class);
+			fail();
+		} catch (KryoException expected) {
+		}
+	}
+
+	public void testStableHash () {
+		// Hashes must never change, as they are part of the serialized bytes.
+		assertEquals(HashedClassResolver.hash("java.util.ArrayList"), HashedClassResolver.hash("java.util.ArrayList"));
+		assertFalse(HashedClassResolver.hash("a.Point") == HashedClassResolver.hash("a.Poinu"));
+	}
+
+	static public class Point {
+		public int x, y;
+
+		public Point () {
+		}
+
+		public Point (int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Point)) return false;
+			Point other = (Point)obj;
+			return x == other.x && y == other.y;
+		}
+	}
+
+	static public class Line {
+		public Point start, end;
+
+		public Line () {
+		}
+
+		public Line (Point start, Point end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		public boolean equals (Object obj) {
+			if (!(obj instanceof Line)) return false;
+			Line other = (Line)obj;
+			return start.equals(other.start) && end.equals(other.end);
+		}
+	}
+}
@@ -25,11 +25,15 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Random;
 
+import com.esotericsoftware.kryo.io.BitInput;
+import com.esotericsoftware.kryo.io.BitOutput;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferInputStream;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.ByteBufferOutputStream;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.IntArray;
 
 /** @author Nathan Sweet <misc@n4te.com> */
 public class InputOutputTest extends KryoTestCase {
@@ -200,6 +204,35 @@ public class InputOutputTest extends KryoTestCase {
 			assertEquals(String.valueOf((char)i) + "abc", read.readStringBuilder().toString());
 	}
 
+	public void testAsciiStrings () throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for (int length = 1; length < 200; length++) {
+			buffer.append((char)('a' + length % 26));
+			String ascii = buffer.toString();
+			String nonAscii = ascii.substring(0, length - 1) + '\u00E9';
+			String nonLatin = '\u1234' + ascii.substring(1);
+
+			Output write = new Output(16, -1);
+			write.writeString(ascii);
+			write.writeString(nonAscii);
+			write.writeString(nonLatin);
+			write.writeAscii(ascii);
+			byte[] bytes = write.toBytes();
+
+			Input read = new Input(bytes);
+			assertEquals(ascii, read.readString());
+			assertEquals(nonAscii, read.readString());
+			assertEquals(nonLatin, read.readString());
+			assertEquals(ascii, read.readString());
+
+			read = new Input(new ByteArrayInputStream(bytes), 13);
+			assertEquals(ascii, read.readString());
+			assertEquals(nonAscii, read.readString());
+			assertEquals(nonLatin, read.readString());
+			assertEquals(ascii, read.readString());
+		}
+	}
+
 	public void testCanReadInt () throws IOException {
 		Output write = new Output(new ByteArrayOutputStream());
 
@@ -508,6 +541,37 @@ public class InputOutputTest extends KryoTestCase {
 		}
 	}
 
+	public void testDeltaInts () throws IOException {
+		Random random = new Random(42);
+		for (int length = 0; length < 1000; length += 1 + length / 3) {
+			int[] ints = new int[length];
+			long[] longs = new long[length];
+			for (int i = 0; i < length; i++) {
+				int shift = random.nextInt(32);
+				ints[i] = i % 200 == 0 ? random.nextInt() : (i == 0 ? 0 : ints[i - 1]) + (random.nextInt() >> shift);
+				longs[i] = i % 300 == 0 ? random.nextLong() : (i == 0 ? 0 : longs[i - 1]) + (random.nextLong() >> shift + 32);
+			}
+			Output[] outputs = {new Output(16, -1), new Output(new ByteArrayOutputStream(), 9), new ByteBufferOutput(16, -1)};
+			for (int ii = 0; ii < outputs.length; ii++) {
+				Output write = outputs[ii];
+				write.writeDeltaInts(ints);
+				write.writeDeltaLongs(longs);
+				write.writeInt(123);
+				write.flush();
+				byte[] bytes = write instanceof ByteBufferOutput ? write.toBytes()
+					: write.getOutputStream() != null ? ((ByteArrayOutputStream)write.getOutputStream()).toByteArray() : write.toBytes();
+				Input[] inputs = {new Input(bytes), new Input(new ByteArrayInputStream(bytes), 11)};
+				for (int iii = 0; iii < inputs.length; iii++) {
+					Input read = inputs[iii];
+					assertEquals(ints, read.readDeltaInts(length));
+					assertEquals(longs, read.readDeltaLongs(length));
+					assertEquals(123, read.readInt());
+					assertTrue(read.eof());
+				}
+			}
+		}
+	}
+
 	public void testShorts () throws IOException {
 		runShortTest(new Output(4096));
 		runShortTest(new Output(new ByteArrayOutputStream()));
@@ -826,4 +890,96 @@ public class InputOutputTest extends KryoTestCase {
 		Output byteBufferOutput = new ByteBufferOutput(0, 10000);
 		kryo.writeClassAndObject(byteBufferOutput, "Test string");
 	}
+
+	public void testByteBuffers () throws IOException {
+		byte[] bytes = new byte[100];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte)i;
+		ByteBuffer direct = ByteBuffer.allocateDirect(100);
+		direct.put(bytes).flip();
+		ByteBuffer[] sources = {ByteBuffer.wrap(bytes, 10, 50), ByteBuffer.wrap(bytes).asReadOnlyBuffer(), direct};
+		for (ByteBuffer source : sources) {
+			int start = source.position();
+			Output[] outputs = {new Output(7, -1), new Output(new ByteArrayOutputStream(), 7), new ByteBufferOutput(7, -1),
+				new ByteBufferOutput(ByteBuffer.allocateDirect(7), -1)};
+			for (Output output : outputs) {
+				output.writeBytes(source);
+				output.writeInt(123);
+				output.flush();
+				assertEquals(start, source.position());
+				byte[] written = output.getOutputStream() != null ? ((ByteArrayOutputStream)output.getOutputStream()).toByteArray()
+					: output.toBytes();
+
+				Input[] inputs = {new Input(written), new Input(new ByteArrayInputStream(written), 7), new ByteBufferInput(written),
+					new ByteBufferInput(new ByteArrayInputStream(written), 7)};
+				for (Input input : inputs) {
+					ByteBuffer read = ByteBuffer.allocateDirect(source.remaining());
+					input.readBytes(read);
+					assertFalse(read.hasRemaining());
+					read.flip();
+					assertEquals(source, read);
+					assertEquals(123, input.readInt());
+					input.rewind();
+					if (input.getInputStream() != null) continue;
+					ByteBuffer view = input.readByteBuffer(source.remaining());
+					assertTrue(view.isReadOnly());
+					assertEquals(source, view);
+					assertEquals(123, input.readInt());
+				}
+			}
+		}
+	}
+
+	public void testWriteThrough () {
+		final IntArray writes = new IntArray();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+			public synchronized void write (byte[] bytes, int offset, int length) {
+				writes.add(length);
+				super.write(bytes, offset, length);
+			}
+		};
+		byte[] bytes = new byte[100];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte)i;
+		Output output = new Output(stream, 16);
+		output.writeInt(123);
+		output.writeBytes(bytes);
+		output.writeBytes(bytes, 0, 15);
+		assertEquals(119, output.total());
+		output.flush();
+		// The buffered int, the large array without a copy, then the small array through the buffer.
+		assertEquals("[4, 100, 15]", writes.toString());
+
+		Input input = new Input(stream.toByteArray());
+		assertEquals(123, input.readInt());
+		assertEquals(bytes, input.readBytes(100));
+		assertEquals(bytes[14], input.readBytes(15)[14]);
+		assertTrue(input.eof());
+	}
+
+	public void testBits () {
+		Random random = new Random(7);
+		long[] values = new long[1000];
+		int[] counts = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			counts[i] = random.nextInt(65);
+			values[i] = counts[i] == 64 ? random.nextLong() : random.nextLong() & ((1L << counts[i]) - 1);
+		}
+		Output output = new Output(16, -1);
+		BitOutput bits = new BitOutput(output);
+		for (int i = 0; i < values.length; i++)
+			bits.writeBits(values[i], counts[i]);
+		bits.writeBit(true);
+		bits.flush();
+		output.writeInt(123);
+
+		Input input = new Input(output.toBytes());
+		BitInput bitInput = new BitInput(input);
+		for (int i = 0; i < values.length; i++)
+			assertEquals(values[i], bitInput.readBits(counts[i]));
+		assertTrue(bitInput.readBit());
+		bitInput.align();
+		assertEquals(123, input.readInt());
+		assertTrue(input.eof());
+	}
 }
@@ -0,0 +1,225 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class JdkCollectionSerializersTest extends KryoTestCase {
+	{
+		supportsCopy = true;
+	}
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.register(ArrayList.class);
+		kryo.register(TreeSet.class);
+		kryo.register(HashMap.class);
+		kryo.register(Collections.reverseOrder().getClass());
+	}
+
+	public void testUnmodifiable () {
+		ArrayList list = list("a", "b", "c");
+		TreeSet set = new TreeSet(Collections.reverseOrder());
+		set.addAll(list);
+		TreeMap map = new TreeMap();
+		map.put("a", "1");
+		map.put("b", "2");
+
+		assertSameContents(Collections.unmodifiableCollection(list));
+		assertSameType(11, Collections.unmodifiableList(list));
+		assertSameType(11, Collections.unmodifiableList(new LinkedList(list)));
+		assertSameType(11, Collections.unmodifiableSet(new TreeSet(list)));
+		assertSameType(12, Collections.unmodifiableSortedSet(set));
+		assertSameType(12, Collections.unmodifiableNavigableSet(set));
+		assertSameType(14, 17, Collections.unmodifiableMap(map));
+		assertSameType(15, 18, Collections.unmodifiableSortedMap(map));
+		assertSameType(15, 18, Collections.unmodifiableNavigableMap(map));
+
+		Set read = (Set)roundTrip(12, 12, Collections.unmodifiableSortedSet(set));
+		assertEquals(list("c", "b", "a"), new ArrayList(read));
+		try {
+			read.add("d");
+			fail();
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	public void testSynchronized () {
+		ArrayList list = list("a", "b", "c");
+		HashMap map = new HashMap();
+		map.put("a", "1");
+
+		assertSameContents(Collections.synchronizedCollection(list));
+		assertSameType(11, Collections.synchronizedList(list));
+		assertSameType(11, Collections.synchronizedList(new LinkedList(list)));
+		assertSameType(11, Collections.synchronizedSet(new TreeSet(list)));
+		assertSameType(12, Collections.synchronizedSortedSet(new TreeSet(list)));
+		assertSameType(12, Collections.synchronizedNavigableSet(new TreeSet(list)));
+		assertSameType(8, 11, Collections.synchronizedMap(map));
+		assertSameType(9, 12, Collections.synchronizedSortedMap(new TreeMap(map)));
+		assertSameType(9, 12, Collections.synchronizedNavigableMap(new TreeMap(map)));
+	}
+
+	public void testViews () {
+		assertSameType(11, Arrays.asList("a", "b", "c"));
+		assertSameType(2, Arrays.asList());
+		assertSameType(8, list("a", "b", "c").subList(1, 3));
+		assertSameType(2, new ArrayList().subList(0, 0));
+		kryo.register(new LinkedList().subList(0, 0).getClass());
+		List read = (List)roundTrip(8, 8, new LinkedList(list("a", "b", "c")).subList(1, 3));
+		assertEquals(list("b", "c"), read);
+
+		// A list containing wrappers and views.
+		ArrayList list = new ArrayList();
+		list.add(Arrays.asList(1, 2, 3));
+		list.add(Collections.unmodifiableList(list(4, 5)));
+		list.add(list(6, 7, 8).subList(0, 2));
+		kryo.register(Collections.unmodifiableList(list).getClass());
+		roundTrip(22, 43, list);
+	}
+
+	/** The contents are written like CollectionSerializer writes them, using the generic type of the field. */
+	public void testGenerics () {
+		kryo.register(HasList.class);
+		kryo.register(Collections.unmodifiableList(new ArrayList()).getClass());
+		HasList object = new HasList();
+		object.list = list("a", "b");
+		Output output = new Output(32);
+		kryo.writeObject(output, object);
+		byte[] arrayList = output.toBytes();
+		object.list = Collections.unmodifiableList(list("a", "b"));
+		output.clear();
+		kryo.writeObject(output, object);
+		byte[] wrapper = output.toBytes();
+		// Only the class ID of the list differs.
+		assertEquals(arrayList.length, wrapper.length);
+		for (int i = 1; i < wrapper.length; i++)
+			assertEquals(arrayList[i], wrapper[i]);
+		HasList read = kryo.readObject(new Input(wrapper), HasList.class);
+		assertEquals(object.list, read.list);
+	}
+
+	/** Wrappers and views are referenced before their contents are read, so they can contain themselves. */
+	public void testReferences () {
+		kryo.setReferences(true);
+		ArrayList list = new ArrayList();
+		List unmodifiable = Collections.unmodifiableList(list);
+		list.add(unmodifiable);
+		kryo.register(unmodifiable.getClass());
+		Output output = new Output(32);
+		kryo.writeClassAndObject(output, unmodifiable);
+		List read = (List)kryo.readClassAndObject(new Input(output.toBytes()));
+		assertSame(read, read.get(0));
+		List copy = kryo.copy(read);
+		assertSame(copy, copy.get(0));
+
+		Object[] array = new Object[2];
+		List asList = Arrays.asList(array);
+		array[0] = "a";
+		array[1] = asList;
+		kryo.register(asList.getClass());
+		output.clear();
+		kryo.writeClassAndObject(output, asList);
+		read = (List)kryo.readClassAndObject(new Input(output.toBytes()));
+		assertEquals("a", read.get(0));
+		assertSame(read, read.get(1));
+
+		HashMap map = new HashMap();
+		Map synchronizedMap = Collections.synchronizedMap(map);
+		map.put("a", synchronizedMap);
+		kryo.register(synchronizedMap.getClass());
+		output.clear();
+		kryo.writeClassAndObject(output, synchronizedMap);
+		Map readMap = (Map)kryo.readClassAndObject(new Input(output.toBytes()));
+		assertSame(readMap, readMap.get("a"));
+	}
+
+	/** List.of, Set.of and Map.of only exist on Java 9 or later. */
+	public void testImmutable () throws Exception {
+		Method listOf;
+		try {
+			listOf = List.class.getMethod("of", Object[].class);
+		} catch (NoSuchMethodException ex) {
+			return;
+		}
+		Method setOf = Set.class.getMethod("of", Object[].class);
+		Method mapOf = Map.class.getMethod("of", Object.class, Object.class);
+
+		List list = (List)listOf.invoke(null, new Object[] {new Object[] {"a", "b", "c"}});
+		assertSameType(11, list);
+		assertSameType(2, (List)listOf.invoke(null, new Object[] {new Object[0]}));
+		assertSameType(5, (List)listOf.invoke(null, new Object[] {new Object[] {"a"}}));
+		// An immutable sublist is read as the list it contains.
+		kryo.register(list.subList(1, 3).getClass());
+		roundTrip(8, 8, list.subList(1, 3));
+		assertSameType(11, (Set)setOf.invoke(null, new Object[] {new Object[] {"a", "b", "c"}}));
+		assertSameType(8, 11, (Map)mapOf.invoke(null, "a", "1"));
+
+		// Copies share the original when the elements are immutable.
+		assertSame(list, kryo.copy(list));
+		ArrayList mutable = list("a");
+		List nested = (List)listOf.invoke(null, new Object[] {new Object[] {mutable}});
+		List copy = kryo.copy(nested);
+		assertNotSame(nested, copy);
+		assertEquals(nested, copy);
+		assertNotSame(mutable, copy.get(0));
+	}
+
+	static public class HasList {
+		public List<String> list;
+	}
+
+	/** For the wrappers that do not implement equals. */
+	private void assertSameContents (Collection object) {
+		kryo.register(object.getClass());
+		Output output = new Output(1024);
+		kryo.writeClassAndObject(output, object);
+		Collection read = (Collection)kryo.readClassAndObject(new Input(output.toBytes()));
+		assertEquals(object.getClass(), read.getClass());
+		assertEquals(new ArrayList(object), new ArrayList(read));
+		assertEquals(new ArrayList(object), new ArrayList(kryo.copy(object)));
+	}
+
+	private void assertSameType (int length, Object object) {
+		assertSameType(length, length, object);
+	}
+
+	private void assertSameType (int length, int unsafeLength, Object object) {
+		kryo.register(object.getClass());
+		Object read = roundTrip(length, unsafeLength, object);
+		assertEquals(object.getClass(), read.getClass());
+		assertEquals(object.getClass(), kryo.copy(object).getClass());
+		if (object instanceof Collection && !(object instanceof Set)) assertEquals(new ArrayList((Collection)object), new ArrayList((Collection)read));
+	}
+}
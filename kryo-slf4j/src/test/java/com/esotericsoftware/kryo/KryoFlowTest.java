@@ -0,0 +1,195 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.io.ByteArrayInputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.KryoFlow.InputPublisher;
+import com.esotericsoftware.kryo.io.KryoFlow.OutputSubscriber;
+import com.esotericsoftware.kryo.io.KryoFlow.Publisher;
+import com.esotericsoftware.kryo.io.KryoFlow.Subscriber;
+import com.esotericsoftware.kryo.io.KryoFlow.Subscription;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoFactory;
+import com.esotericsoftware.kryo.pool.KryoPool;
+
+public class KryoFlowTest extends KryoTestCase {
+	private KryoPool pool;
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		pool = new KryoPool.Builder(new KryoFactory() {
+			public Kryo create () {
+				return new Kryo();
+			}
+		}).build();
+	}
+
+	public void testPublisherBackpressure () {
+		Kryo writer = pool.borrow();
+		Output output = new Output(1024);
+		for (int i = 0; i < 5; i++)
+			writer.writeClassAndObject(output, "s" + i);
+		pool.release(writer);
+		InputPublisher<String> publisher = new InputPublisher(pool, new ByteArrayInputStream(output.toBytes()), null);
+		Collector collector = new Collector(0);
+		publisher.subscribe(collector);
+		assertEquals(0, collector.items.size());
+		collector.subscription.request(2);
+		assertEquals(list("s0", "s1"), collector.items);
+		assertFalse(collector.completed);
+		collector.subscription.request(3);
+		assertEquals(list("s0", "s1", "s2", "s3", "s4"), collector.items);
+		assertFalse(collector.completed);
+		collector.subscription.request(1);
+		assertTrue(collector.completed);
+		assertNull(collector.error);
+	}
+
+	public void testCancel () {
+		Kryo writer = pool.borrow();
+		Output output = new Output(1024);
+		for (int i = 0; i < 5; i++)
+			writer.writeObject(output, i);
+		pool.release(writer);
+		InputPublisher<Integer> publisher = new InputPublisher(pool, new Input(output.toBytes()), Integer.class);
+		Collector collector = new Collector(2);
+		publisher.subscribe(collector);
+		collector.subscription.cancel();
+		collector.subscription.request(10);
+		assertEquals(list(0, 1), collector.items);
+		assertFalse(collector.completed);
+		assertNull(collector.error);
+	}
+
+	public void testInvalidRequest () {
+		InputPublisher<String> publisher = new InputPublisher(pool, new Input(new byte[0]), null);
+		Collector collector = new Collector(0);
+		publisher.subscribe(collector);
+		collector.subscription.request(0);
+		assertTrue(collector.error instanceof IllegalArgumentException);
+
+		Collector second = new Collector(1);
+		publisher.subscribe(second);
+		assertTrue(second.error instanceof IllegalStateException);
+	}
+
+	/** Objects written by a subscriber on one thread are read by a publisher on another through a pipe. */
+	public void testPipe () throws Exception {
+		final List<Object> values = new ArrayList();
+		for (int i = 0; i < 100; i++)
+			values.add(i % 2 == 0 ? "s" + i : i);
+		PipedInputStream in = new PipedInputStream(256);
+		final PipedOutputStream out = new PipedOutputStream(in);
+		final OutputSubscriber subscriber = new OutputSubscriber(pool, out, null, 7);
+		Thread writer = new Thread() {
+			public void run () {
+				new IterablePublisher(values).subscribe(subscriber);
+				try {
+					subscriber.await();
+					out.close();
+				} catch (Exception ignored) {
+				}
+			}
+		};
+		writer.start();
+
+		Collector collector = new Collector(Long.MAX_VALUE);
+		new InputPublisher(pool, in, null).subscribe(collector);
+		writer.join();
+		assertTrue(subscriber.isDone());
+		assertNull(subscriber.getError());
+		assertNull(collector.error);
+		assertTrue(collector.completed);
+		assertEquals(values, collector.items);
+	}
+
+	static class Collector implements Subscriber {
+		final long initialRequest;
+		final ArrayList items = new ArrayList();
+		Subscription subscription;
+		boolean completed;
+		Throwable error;
+
+		Collector (long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		public void onSubscribe (Subscription subscription) {
+			this.subscription = subscription;
+			if (initialRequest > 0) subscription.request(initialRequest);
+		}
+
+		public void onNext (Object item) {
+			items.add(item);
+		}
+
+		public void onError (Throwable throwable) {
+			error = throwable;
+		}
+
+		public void onComplete () {
+			completed = true;
+		}
+	}
+
+	/** Publishes the items of a list, honoring the requested amounts. */
+	static class IterablePublisher implements Publisher {
+		final Iterable items;
+
+		IterablePublisher (Iterable items) {
+			this.items = items;
+		}
+
+		public void subscribe (final Subscriber subscriber) {
+			final Iterator iterator = items.iterator();
+			subscriber.onSubscribe(new Subscription() {
+				long requested;
+				boolean emitting, done;
+
+				public void request (long n) {
+					requested += n;
+					if (emitting) return;
+					emitting = true;
+					while (requested > 0 && !done) {
+						if (!iterator.hasNext()) {
+							done = true;
+							subscriber.onComplete();
+							break;
+						}
+						requested--;
+						subscriber.onNext(iterator.next());
+					}
+					emitting = false;
+				}
+
+				public void cancel () {
+					done = true;
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.MappedFileInput;
+import com.esotericsoftware.kryo.io.MappedFileOutput;
+
+public class MappedFileInputOutputTest extends KryoTestCase {
+	private File file;
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.setRegistrationRequired(false);
+		file = File.createTempFile("kryo", ".bin");
+		file.deleteOnExit();
+	}
+
+	private FileChannel open () throws IOException {
+		return new RandomAccessFile(file, "rw").getChannel();
+	}
+
+	public void testWindows () throws IOException {
+		byte[] large = new byte[1000];
+		for (int i = 0; i < large.length; i++)
+			large[i] = (byte)i;
+
+		MappedFileOutput output = new MappedFileOutput(open(), 0, 32);
+		for (int i = 0; i < 100; i++) {
+			output.writeInt(i, true);
+			output.writeString("value" + i);
+			output.writeDouble(i * 1.5d);
+		}
+		output.writeBytes(large);
+		output.writeLong(1234567890123L);
+		ArrayList list = list("a", 1, 2.5d);
+		kryo.writeClassAndObject(output, list);
+		long length = output.getFilePosition();
+		assertEquals(length, output.total());
+		output.close();
+		assertEquals(length, file.length());
+
+		MappedFileInput input = new MappedFileInput(open(), 0, 32);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, input.readInt(true));
+			assertEquals("value" + i, input.readString());
+			assertEquals(i * 1.5d, input.readDouble());
+		}
+		assertEquals(large, input.readBytes(large.length));
+		assertEquals(1234567890123L, input.readLong());
+		assertEquals(list, kryo.readClassAndObject(input));
+		assertTrue(input.eof());
+		assertEquals(length, input.total());
+		assertEquals(length, input.getFilePosition());
+		try {
+			input.readByte();
+			fail();
+		} catch (KryoException expected) {
+		}
+		input.close();
+		assertFalse(input.getChannel().isOpen());
+	}
+
+	public void testFilePosition () throws IOException {
+		MappedFileOutput output = new MappedFileOutput(open(), 0, 64);
+		output.preallocate(10000);
+		assertEquals(10000, file.length());
+		for (int i = 0; i < 1000; i++)
+			output.writeInt(i);
+		output.setFilePosition(400);
+		output.writeInt(-1);
+		output.setFilePosition(4000);
+		output.close();
+		assertEquals(4000, file.length());
+
+		MappedFileInput input = new MappedFileInput(open(), 396, 64);
+		assertEquals(99, input.readInt());
+		assertEquals(-1, input.readInt());
+		input.skip(500 * 4);
+		assertEquals(601, input.readInt());
+		input.setFilePosition(3996);
+		assertEquals(999, input.readInt());
+		assertTrue(input.eof());
+		input.rewind();
+		assertEquals(396, input.getFilePosition());
+		assertEquals(99, input.readInt());
+		byte[] bytes = new byte[8];
+		assertEquals(8, input.read(bytes));
+		input.close();
+	}
+
+	public void testByteBufferViews () throws IOException {
+		byte[] large = new byte[1000];
+		for (int i = 0; i < large.length; i++)
+			large[i] = (byte)i;
+		MappedFileOutput output = new MappedFileOutput(open(), 0, 64);
+		output.writeInt(1);
+		output.writeBytes(ByteBuffer.wrap(large));
+		output.writeInt(2);
+		output.close();
+
+		MappedFileInput input = new MappedFileInput(open(), 0, 64);
+		assertEquals(1, input.readInt());
+		ByteBuffer view = input.readByteBuffer(large.length);
+		assertEquals(2, input.readInt());
+		assertTrue(input.eof());
+		// The view is mapped separately, so it is still valid after the window moved.
+		assertTrue(view.isReadOnly());
+		assertEquals(ByteBuffer.wrap(large), view);
+		try {
+			input.readByteBuffer(1);
+			fail();
+		} catch (KryoException expected) {
+		}
+		input.close();
+	}
+
+	/** Each move of the window releases the previous mapping, forward and backward. */
+	public void testRemap () throws IOException {
+		MappedFileOutput output = new MappedFileOutput(open(), 0, 16);
+		for (int i = 0; i < 10; i++)
+			output.writeLong(i);
+		output.setFilePosition(8);
+		output.writeLong(100);
+		output.close();
+		assertEquals(80, file.length());
+
+		MappedFileInput input = new MappedFileInput(open(), 0, 16);
+		assertEquals(0, input.readLong());
+		assertEquals(100, input.readLong());
+		for (int i = 2; i < 10; i++)
+			assertEquals(i, input.readLong());
+		assertTrue(input.eof());
+		input.setFilePosition(16);
+		assertEquals(2, input.readLong());
+		input.close();
+	}
+
+	public void testAppend () throws IOException {
+		MappedFileOutput output = new MappedFileOutput(open(), 0, 64);
+		output.writeString("first");
+		output.close();
+
+		output = new MappedFileOutput(open(), file.length(), 64);
+		output.writeString("second");
+		output.close();
+
+		MappedFileInput input = new MappedFileInput(open(), 0, 64);
+		assertEquals("first", input.readString());
+		assertEquals("second", input.readString());
+		assertTrue(input.eof());
+		input.close();
+	}
+}
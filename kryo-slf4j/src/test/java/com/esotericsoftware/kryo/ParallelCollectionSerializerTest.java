@@ -0,0 +1,137 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoFactory;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import com.esotericsoftware.kryo.serializers.ParallelCollectionSerializer;
+
+public class ParallelCollectionSerializerTest extends KryoTestCase {
+	private KryoPool pool;
+	private ForkJoinPool forkJoinPool;
+
+	{
+		supportsCopy = true;
+	}
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.register(Value.class);
+		pool = new KryoPool.Builder(new KryoFactory() {
+			public Kryo create () {
+				Kryo kryo = new Kryo();
+				kryo.setReferences(true);
+				kryo.register(Value.class);
+				return kryo;
+			}
+		}).build();
+		forkJoinPool = new ForkJoinPool(4);
+	}
+
+	protected void tearDown () throws Exception {
+		forkJoinPool.shutdown();
+		super.tearDown();
+	}
+
+	public void testCollection () {
+		ParallelCollectionSerializer serializer = new ParallelCollectionSerializer(pool, forkJoinPool);
+		serializer.setSegmentSize(16);
+		kryo.register(ArrayList.class, serializer);
+
+		roundTrip(2, 2, new ArrayList());
+		roundTrip(16, 16, list("1", "2", "3"));
+
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < 100; i++)
+			list.add(i % 3 == 0 ? null : i % 3 == 1 ? "s" + i : new Value(i));
+		roundTrip(317, 317, list);
+	}
+
+	public void testArray () {
+		ParallelCollectionSerializer.ObjectArraySerializer serializer = new ParallelCollectionSerializer.ObjectArraySerializer(
+			pool, forkJoinPool);
+		serializer.setSegmentSize(10);
+		kryo.register(String[].class, serializer);
+
+		String[] array = new String[95];
+		for (int i = 0; i < array.length; i++)
+			array[i] = "s" + i;
+		roundTrip(478, 478, array);
+	}
+
+	public void testSharedPool () {
+		ParallelCollectionSerializer serializer = new ParallelCollectionSerializer(pool);
+		serializer.setSegmentSize(16);
+		kryo.register(ArrayList.class, serializer);
+		ParallelCollectionSerializer.ObjectArraySerializer arraySerializer = new ParallelCollectionSerializer.ObjectArraySerializer(
+			pool);
+		arraySerializer.setSegmentSize(10);
+		kryo.register(String[].class, arraySerializer);
+
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < 100; i++)
+			list.add(i % 3 == 0 ? null : i % 3 == 1 ? "s" + i : new Value(i));
+		roundTrip(317, 317, list);
+		String[] array = new String[95];
+		for (int i = 0; i < array.length; i++)
+			array[i] = "s" + i;
+		roundTrip(478, 478, array);
+	}
+
+	/** References are tracked only within a segment. */
+	public void testSegmentReferences () {
+		ParallelCollectionSerializer serializer = new ParallelCollectionSerializer(pool, forkJoinPool);
+		serializer.setSegmentSize(2);
+		kryo.register(ArrayList.class, serializer);
+
+		Value value = new Value(1);
+		Output output = new Output(1024);
+		kryo.writeObject(output, list(value, value, value));
+		ArrayList list = kryo.readObject(new Input(output.toBytes()), ArrayList.class);
+		assertEquals(3, list.size());
+		assertSame(list.get(0), list.get(1));
+		assertNotSame(list.get(1), list.get(2));
+		assertEquals(value, list.get(2));
+	}
+
+	static public class Value {
+		public int value;
+
+		public Value () {
+		}
+
+		public Value (int value) {
+			this.value = value;
+		}
+
+		public boolean equals (Object obj) {
+			return obj instanceof Value && ((Value)obj).value == value;
+		}
+
+		public int hashCode () {
+			return value;
+		}
+	}
+}
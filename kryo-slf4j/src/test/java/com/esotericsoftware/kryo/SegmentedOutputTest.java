@@ -0,0 +1,175 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.SegmentedOutput;
+import com.esotericsoftware.kryo.util.ByteArrayPool;
+
+public class SegmentedOutputTest extends KryoTestCase {
+	private ArrayList graph;
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.setRegistrationRequired(false);
+		graph = new ArrayList();
+		for (int i = 0; i < 500; i++)
+			graph.add(list("value" + i, i, (long)i << 40, Integer.toHexString(i)));
+	}
+
+	private byte[] expected () {
+		Output output = new Output(1024, -1);
+		kryo.writeClassAndObject(output, graph);
+		output.writeBytes(new byte[1000]);
+		return output.toBytes();
+	}
+
+	private void write (Output output) {
+		kryo.writeClassAndObject(output, graph);
+		output.writeBytes(new byte[1000]);
+	}
+
+	public void testPages () {
+		byte[] expected = expected();
+		SegmentedOutput output = new SegmentedOutput(64);
+		write(output);
+		assertEquals(expected.length, output.total());
+		assertTrue(output.getPageCount() > expected.length / 64);
+		assertEquals(expected, output.toBytes());
+
+		int total = 0;
+		ByteBuffer[] buffers = output.getByteBuffers();
+		assertEquals(output.getPageCount(), buffers.length);
+		for (int i = 0; i < buffers.length; i++) {
+			assertEquals(output.getPageLength(i), buffers[i].remaining());
+			assertTrue(output.getPage(i).length == 64);
+			total += buffers[i].remaining();
+		}
+		assertEquals(expected.length, total);
+
+		Input input = new Input(output.toBytes());
+		assertEquals(graph, kryo.readClassAndObject(input));
+	}
+
+	public void testWriteTo () throws IOException {
+		byte[] expected = expected();
+		SegmentedOutput output = new SegmentedOutput(100);
+		write(output);
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		output.writeTo(stream);
+		assertEquals(expected, stream.toByteArray());
+
+		File file = File.createTempFile("kryo", ".bin");
+		file.deleteOnExit();
+		FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		output.writeTo(channel);
+		assertEquals(expected.length, channel.size());
+		ByteBuffer bytes = ByteBuffer.allocate(expected.length);
+		channel.read(bytes, 0);
+		channel.close();
+		assertEquals(expected, bytes.array());
+	}
+
+	public void testFlush () {
+		byte[] expected = expected();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		SegmentedOutput output = new SegmentedOutput(stream, 64);
+		write(output);
+		output.flush();
+		assertEquals(expected.length, output.total());
+		assertEquals(0, output.position());
+		assertEquals(1, output.getPageCount());
+		assertEquals(expected, stream.toByteArray());
+	}
+
+	public void testPool () {
+		ByteArrayPool pool = new ByteArrayPool(128, 1000);
+		SegmentedOutput output = new SegmentedOutput(pool);
+		write(output);
+		int pages = output.getPageCount();
+		output.clear();
+		assertEquals(pages - 1, pool.getFree());
+		assertEquals(0, output.total());
+		output.release();
+		assertEquals(pages, pool.getFree());
+
+		write(output);
+		assertEquals(pages, output.getPageCount());
+		assertEquals(0, pool.getFree());
+		assertEquals(expected(), output.toBytes());
+	}
+
+	public void testSetBuffer () {
+		ByteArrayPool pool = new ByteArrayPool(64, 1000);
+		SegmentedOutput output = new SegmentedOutput(pool);
+		write(output);
+		byte[] buffer = new byte[32];
+		output.setBuffer(buffer);
+		assertEquals(0, output.total());
+		assertEquals(1, output.getPageCount());
+		assertSame(buffer, output.getPage(0));
+
+		write(output);
+		assertSame(buffer, output.getPage(0));
+		assertEquals(64, output.getPage(1).length);
+		assertEquals(expected(), output.toBytes());
+	}
+
+	/** The array passed to setBuffer belongs to the caller, even when it has the pool's array size. */
+	public void testSetBufferNotPooled () {
+		ByteArrayPool pool = new ByteArrayPool(64, 1000);
+		SegmentedOutput output = new SegmentedOutput(pool);
+		byte[] buffer = new byte[64];
+		output.setBuffer(buffer);
+		write(output);
+		int pages = output.getPageCount();
+		output.clear();
+		output.release();
+		assertEquals(pages - 1, pool.getFree());
+		for (int i = 0, n = pool.getFree(); i < n; i++)
+			assertNotSame(buffer, pool.obtain());
+
+		output.setBuffer(buffer);
+		output.release();
+		assertEquals(0, pool.getFree());
+	}
+
+	public void testPageOverflow () {
+		SegmentedOutput output = new SegmentedOutput(16);
+		output.writeBytes(new byte[100]);
+		assertEquals(100, output.total());
+		try {
+			output.writeString(null);
+			output.writeVarLong(1, true);
+			output.writeInts(new int[100]);
+		} catch (KryoException ex) {
+			fail();
+		}
+	}
+}
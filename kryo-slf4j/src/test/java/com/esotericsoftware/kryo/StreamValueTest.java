@@ -0,0 +1,158 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.StreamValue;
+import com.esotericsoftware.kryo.serializers.StreamValueSerializer;
+
+public class StreamValueTest extends KryoTestCase {
+	static private final Charset UTF8 = Charset.forName("UTF-8");
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		kryo.register(StreamValue.class);
+		kryo.register(Attachment.class);
+	}
+
+	public void testLargeValue () throws IOException {
+		final int size = 10 * 1024 * 1024 + 7;
+		final int[] written = new int[1];
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream() {
+			public synchronized void write (byte[] bytes, int offset, int length) {
+				written[0] = Math.max(written[0], length);
+				super.write(bytes, offset, length);
+			}
+		};
+		Output output = new Output(outStream, 1024);
+		Attachment attachment = new Attachment();
+		attachment.name = "data.bin";
+		attachment.payload = new StreamValue(new GeneratedInputStream(size));
+		kryo.writeObject(output, attachment);
+		output.flush();
+		// Chunks go straight to the OutputStream rather than through the 1KB buffer.
+		assertEquals(64 * 1024, written[0]);
+
+		Input input = new Input(new ByteArrayInputStream(outStream.toByteArray()), 1024);
+		Attachment read = kryo.readObject(input, Attachment.class);
+		assertEquals("data.bin", read.name);
+		InputStream content = read.payload.getInputStream();
+		InputStream expected = new GeneratedInputStream(size);
+		byte[] bytes = new byte[1000];
+		int total = 0;
+		while (true) {
+			int count = content.read(bytes);
+			if (count == -1) break;
+			for (int i = 0; i < count; i++)
+				assertEquals(expected.read(), bytes[i] & 0xFF);
+			total += count;
+		}
+		assertEquals(size, total);
+		assertTrue(input.eof());
+	}
+
+	public void testText () throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < 10000; i++)
+			buffer.append("line ").append(i).append(" é中\n");
+		String text = buffer.toString();
+		StreamValueSerializer serializer = new StreamValueSerializer();
+		serializer.setChunkSize(100);
+		kryo.register(StreamValue.class, serializer);
+
+		Output output = new Output(512, -1);
+		kryo.writeObject(output, new StreamValue(new StringReader(text), UTF8));
+		output.writeInt(123);
+
+		Input input = new Input(output.toBytes());
+		Reader reader = kryo.readObject(input, StreamValue.class).getReader(UTF8);
+		StringBuilder read = new StringBuilder();
+		char[] chars = new char[777];
+		while (true) {
+			int count = reader.read(chars);
+			if (count == -1) break;
+			read.append(chars, 0, count);
+		}
+		assertEquals(text, read.toString());
+		assertEquals(123, input.readInt());
+	}
+
+	public void testClose () throws IOException {
+		Output output = new Output(512, -1);
+		kryo.writeObject(output, new StreamValue(new GeneratedInputStream(300000)));
+		output.writeInt(123);
+		kryo.writeObject(output, new StreamValue(new GeneratedInputStream(1000)));
+		output.writeInt(456);
+
+		Input input = new Input(output.toBytes());
+		StreamValue value = kryo.readObject(input, StreamValue.class);
+		assertEquals(0, value.getInputStream().read());
+		value.close();
+		assertEquals(123, input.readInt());
+
+		// Reading the Input before the value is read to the end is detected.
+		value = kryo.readObject(input, StreamValue.class);
+		value.getInputStream().read(new byte[10]);
+		input.readInt();
+		try {
+			value.getInputStream().read();
+			fail();
+		} catch (IOException expected) {
+		}
+	}
+
+	static public class Attachment {
+		String name;
+		// FieldSerializer orders fields by name, the stream value must be last.
+		StreamValue payload;
+	}
+
+	/** Generates bytes without holding them in memory. */
+	static class GeneratedInputStream extends InputStream {
+		private final int size;
+		private int position;
+
+		GeneratedInputStream (int size) {
+			this.size = size;
+		}
+
+		public int read () {
+			if (position == size) return -1;
+			return (position++ * 31) & 0xFF;
+		}
+
+		public int read (byte[] bytes, int offset, int length) {
+			if (position == size) return -1;
+			// Short reads, as from a socket.
+			int count = Math.min(Math.min(length, 5000), size - position);
+			for (int i = 0; i < count; i++)
+				bytes[offset + i] = (byte)(position++ * 31);
+			return count;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.kryo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+
+public class TimeSerializersTest extends KryoTestCase {
+	{
+		supportsCopy = true;
+	}
+
+	public void testInstantAndDuration () {
+		kryo.register(Instant.class);
+		kryo.register(Duration.class);
+		roundTrip(10, 10, Instant.ofEpochSecond(1700000000L, 123456789));
+		roundTrip(3, 3, Instant.EPOCH);
+		roundTrip(10, 10, Instant.MIN);
+		roundTrip(14, 14, Instant.MAX);
+		roundTrip(3, 3, Duration.ofSeconds(-30));
+		roundTrip(5, 5, Duration.ofMillis(1));
+		roundTrip(3, 3, Duration.ZERO);
+	}
+
+	public void testLocalDateAndTime () {
+		kryo.register(LocalDate.class);
+		kryo.register(LocalTime.class);
+		kryo.register(LocalDateTime.class);
+		roundTrip(4, 4, LocalDate.of(2024, 2, 29));
+		roundTrip(4, 4, LocalDate.of(-2024, 12, 31));
+		roundTrip(7, 7, LocalDate.MIN);
+		roundTrip(7, 7, LocalDate.MAX);
+		roundTrip(3, 3, LocalTime.MIDNIGHT);
+		roundTrip(9, 9, LocalTime.MAX);
+		roundTrip(8, 8, LocalDateTime.of(2024, 2, 29, 13, 45, 10));
+		roundTrip(9, 9, LocalDateTime.MIN);
+		roundTrip(15, 15, LocalDateTime.MAX);
+	}
+
+	public void testOffsets () {
+		kryo.register(ZoneOffset.class);
+		kryo.register(OffsetTime.class);
+		kryo.register(OffsetDateTime.class);
+		roundTrip(2, 2, ZoneOffset.UTC);
+		roundTrip(2, 2, ZoneOffset.ofHoursMinutes(5, 30));
+		roundTrip(2, 2, ZoneOffset.ofHoursMinutes(-3, -45));
+		roundTrip(3, 3, ZoneOffset.ofTotalSeconds(-1234));
+		roundTrip(5, 5, OffsetTime.of(1, 2, 3, 0, ZoneOffset.ofHours(-8)));
+		roundTrip(9, 9, OffsetDateTime.of(2024, 2, 29, 13, 45, 10, 0, ZoneOffset.ofHours(1)));
+		roundTrip(17, 17, OffsetDateTime.MAX);
+	}
+
+	public void testZones () {
+		kryo.register(ZoneId.of("Europe/Paris").getClass());
+		kryo.register(ZoneOffset.class);
+		kryo.register(ZonedDateTime.class);
+		kryo.register(ArrayList.class);
+		roundTrip(14, 14, ZoneId.of("Europe/Paris"));
+		roundTrip(2, 2, ZoneId.of("Z"));
+		roundTrip(22, 22, ZonedDateTime.of(2024, 3, 31, 12, 0, 0, 0, ZoneId.of("Europe/Paris")));
+		roundTrip(16, 16, ZonedDateTime.of(2024, 3, 31, 12, 0, 0, 0, ZoneId.of("+05:30")));
+
+		// The same local time occurs twice when daylight saving time ends.
+		ZonedDateTime earlier = ZonedDateTime.of(2023, 10, 29, 2, 30, 0, 0, ZoneId.of("Europe/Paris"));
+		roundTrip(21, 21, earlier);
+		roundTrip(21, 21, earlier.withLaterOffsetAtOverlap());
+
+		// The zone ID is only written the first time in the object graph.
+		ArrayList list = new ArrayList();
+		for (int i = 0; i < 10; i++)
+			list.add(ZonedDateTime.of(2024, 3, 31, i, 0, 0, 0, ZoneId.of("Europe/Paris")));
+		ArrayList copy = roundTrip(108, 108, list);
+		assertSame(((ZonedDateTime)copy.get(0)).getZone(), ((ZonedDateTime)copy.get(9)).getZone());
+	}
+
+	public void testDateParts () {
+		kryo.register(Year.class);
+		kryo.register(YearMonth.class);
+		kryo.register(MonthDay.class);
+		kryo.register(Period.class);
+		roundTrip(3, 3, Year.of(2024));
+		roundTrip(3, 3, Year.of(-2024));
+		roundTrip(4, 4, YearMonth.of(2024, 12));
+		roundTrip(3, 3, MonthDay.of(12, 31));
+		roundTrip(4, 4, Period.of(1, -2, 3));
+		roundTrip(4, 4, Period.ZERO);
+	}
+}
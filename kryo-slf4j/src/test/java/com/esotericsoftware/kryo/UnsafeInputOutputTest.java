@@ -190,6 +190,35 @@ public class UnsafeInputOutputTest extends KryoTestCase {
 			assertEquals(String.valueOf((char)i) + "abc", read.readStringBuilder().toString());
 	}
 
+	public void testAsciiStrings () throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		for (int length = 1; length < 200; length++) {
+			buffer.append((char)('a' + length % 26));
+			String ascii = buffer.toString();
+			String nonAscii = ascii.substring(0, length - 1) + '\u00E9';
+			String nonLatin = '\u1234' + ascii.substring(1);
+
+			UnsafeOutput write = new UnsafeOutput(16, -1);
+			write.writeString(ascii);
+			write.writeString(nonAscii);
+			write.writeString(nonLatin);
+			write.writeAscii(ascii);
+			byte[] bytes = write.toBytes();
+
+			UnsafeInput read = new UnsafeInput(bytes);
+			assertEquals(ascii, read.readString());
+			assertEquals(nonAscii, read.readString());
+			assertEquals(nonLatin, read.readString());
+			assertEquals(ascii, read.readString());
+
+			read = new UnsafeInput(new ByteArrayInputStream(bytes), 13);
+			assertEquals(ascii, read.readString());
+			assertEquals(nonAscii, read.readString());
+			assertEquals(nonLatin, read.readString());
+			assertEquals(ascii, read.readString());
+		}
+	}
+
 	public void testCanReadInt () throws IOException {
 		UnsafeOutput write = new UnsafeOutput(new ByteArrayOutputStream());
 
@@ -793,6 +822,50 @@ public class UnsafeInputOutputTest extends KryoTestCase {
 		assertEquals(true, read.eof());
 	}
 
+	public void testVarIntWireFormat () throws IOException {
+		Random random = new Random(42);
+		int[] ints = new int[2000];
+		long[] longs = new long[2000];
+		for (int i = 0; i < ints.length; i++) {
+			// Spread the values over all encoded lengths.
+			ints[i] = random.nextInt() >> random.nextInt(32);
+			longs[i] = random.nextLong() >> random.nextInt(64);
+		}
+		ints[0] = Integer.MIN_VALUE;
+		ints[1] = Integer.MAX_VALUE;
+		longs[0] = Long.MIN_VALUE;
+		longs[1] = Long.MAX_VALUE;
+
+		Output expected = new Output(1024, -1);
+		UnsafeOutput write = new UnsafeOutput(1024, -1);
+		for (int i = 0; i < ints.length; i++) {
+			boolean optimizePositive = i % 2 == 0;
+			assertEquals(expected.writeVarInt(ints[i], optimizePositive), write.writeVarInt(ints[i], optimizePositive));
+			assertEquals(expected.writeVarLong(longs[i], optimizePositive), write.writeVarLong(longs[i], optimizePositive));
+		}
+		byte[] bytes = expected.toBytes();
+		assertEquals(bytes, write.toBytes());
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		write = new UnsafeOutput(os, 11);
+		for (int i = 0; i < ints.length; i++) {
+			write.writeVarInt(ints[i], i % 2 == 0);
+			write.writeVarLong(longs[i], i % 2 == 0);
+		}
+		write.flush();
+		assertEquals(bytes, os.toByteArray());
+
+		Input[] inputs = {new UnsafeInput(bytes), new UnsafeInput(new ByteArrayInputStream(bytes), 13), new Input(bytes)};
+		for (int ii = 0; ii < inputs.length; ii++) {
+			Input read = inputs[ii];
+			for (int i = 0; i < ints.length; i++) {
+				assertEquals(ints[i], read.readVarInt(i % 2 == 0));
+				assertEquals(longs[i], read.readVarLong(i % 2 == 0));
+			}
+			assertTrue(read.eof());
+		}
+	}
+
 	public void testSimpleVarInt() {
       final int value = 39117;
       final Output out = new UnsafeOutput(1024);
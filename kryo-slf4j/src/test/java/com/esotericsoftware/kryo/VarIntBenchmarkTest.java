@@ -0,0 +1,102 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.io.UnsafeInput;
+import com.esotericsoftware.kryo.io.UnsafeOutput;
+
+/** Compares the speed of writing and reading variable length ints and longs with the byte at a time {@link Output} and
+ * {@link Input} and the word at a time {@link UnsafeOutput} and {@link UnsafeInput}. */
+public class VarIntBenchmarkTest extends KryoTestCase {
+	private static final int WARMUP_ITERATIONS = 200;
+
+	/** Number of runs. */
+	private static final int RUN_CNT = 1;
+
+	/** Number of iterations. Set it to something rather big for obtaining meaningful results */
+// private static final int ITER_CNT = 20000;
+	private static final int ITER_CNT = 20;
+
+	private static final int VALUE_CNT = 10000;
+
+	private final int[] ints = new int[VALUE_CNT];
+	private final long[] longs = new long[VALUE_CNT];
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		Random random = new Random(42);
+		for (int i = 0; i < VALUE_CNT; i++) {
+			// Mostly small values, as for class IDs, reference IDs and lengths.
+			ints[i] = random.nextInt() >>> (i % 4 == 0 ? random.nextInt(32) : 20 + random.nextInt(12));
+			longs[i] = random.nextLong() >>> random.nextInt(64);
+		}
+	}
+
+	public void testOutputInput () throws Exception {
+		run("Output/Input", new Output(VALUE_CNT * 14), new Input(), 1, WARMUP_ITERATIONS, false);
+		run("Output/Input", new Output(VALUE_CNT * 14), new Input(), RUN_CNT, ITER_CNT, true);
+	}
+
+	public void testUnsafeOutputInput () throws Exception {
+		run("UnsafeOutput/UnsafeInput", new UnsafeOutput(VALUE_CNT * 14), new UnsafeInput(), 1, WARMUP_ITERATIONS, false);
+		run("UnsafeOutput/UnsafeInput", new UnsafeOutput(VALUE_CNT * 14), new UnsafeInput(), RUN_CNT, ITER_CNT, true);
+	}
+
+	private void run (String name, Output output, Input input, final int RUN_CNT, final int ITER_CNT, boolean outputResults) {
+		long bestWrite = Long.MAX_VALUE, bestRead = Long.MAX_VALUE;
+		long check = 0;
+		for (int i = 0; i < RUN_CNT; i++) {
+			long write = 0, read = 0;
+			for (int j = 0; j < ITER_CNT; j++) {
+				long start = System.nanoTime();
+				output.clear();
+				for (int k = 0; k < VALUE_CNT; k++) {
+					output.writeVarInt(ints[k], true);
+					output.writeVarLong(longs[k], true);
+				}
+				write += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				input.setBuffer(output.getBuffer(), 0, output.position());
+				for (int k = 0; k < VALUE_CNT; k++) {
+					check += input.readVarInt(true);
+					check += input.readVarLong(true);
+				}
+				read += System.nanoTime() - start;
+			}
+			bestWrite = Math.min(bestWrite, write);
+			bestRead = Math.min(bestRead, read);
+		}
+
+		long expected = 0;
+		for (int k = 0; k < VALUE_CNT; k++)
+			expected += ints[k] + longs[k];
+		assertEquals(expected * RUN_CNT * ITER_CNT, check);
+
+		if (outputResults) {
+			System.out.format("\n>>> %s varint write (best time): %,d ms\n", name, TimeUnit.NANOSECONDS.toMillis(bestWrite));
+			System.out.format(">>> %s varint read (best time): %,d ms\n\n", name, TimeUnit.NANOSECONDS.toMillis(bestRead));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/* Copyright (c) 2008, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+package com.esotericsoftware.kryo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.FloatArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorDoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.XorFloatArraySerializer;
+
+/** Compares the speed and size of the raw {@link DoubleArraySerializer} and {@link FloatArraySerializer} with the XOR encoding of
+ * {@link XorDoubleArraySerializer} and {@link XorFloatArraySerializer} for a slowly changing series. */
+public class XorArrayBenchmarkTest extends KryoTestCase {
+	private static final int WARMUP_ITERATIONS = 200;
+
+	/** Number of runs. */
+	private static final int RUN_CNT = 1;
+
+	/** Number of iterations. Set it to something rather big for obtaining meaningful results */
+// private static final int ITER_CNT = 20000;
+	private static final int ITER_CNT = 20;
+
+	private static final int VALUE_CNT = 10000;
+
+	private final double[] doubles = new double[VALUE_CNT];
+	private final float[] floats = new float[VALUE_CNT];
+
+	protected void setUp () throws Exception {
+		super.setUp();
+		Random random = new Random(42);
+		double price = 100;
+		for (int i = 0; i < VALUE_CNT; i++) {
+			// A price moving by a few cents at a time.
+			if (random.nextInt(4) == 0) price = Math.round(price * 100 + random.nextInt(11) - 5) / 100d;
+			doubles[i] = price;
+			floats[i] = (float)price;
+		}
+	}
+
+	public void testRaw () throws Exception {
+		kryo.register(double[].class, new DoubleArraySerializer());
+		kryo.register(float[].class, new FloatArraySerializer());
+		run("Raw", 1, WARMUP_ITERATIONS, false);
+		run("Raw", RUN_CNT, ITER_CNT, true);
+	}
+
+	public void testXor () throws Exception {
+		kryo.register(double[].class, new XorDoubleArraySerializer());
+		kryo.register(float[].class, new XorFloatArraySerializer());
+		run("XOR", 1, WARMUP_ITERATIONS, false);
+		run("XOR", RUN_CNT, ITER_CNT, true);
+	}
+
+	private void run (String name, final int RUN_CNT, final int ITER_CNT, boolean outputResults) {
+		Output output = new Output(VALUE_CNT * 13);
+		Input input = new Input();
+		long bestWrite = Long.MAX_VALUE, bestRead = Long.MAX_VALUE;
+		for (int i = 0; i < RUN_CNT; i++) {
+			long write = 0, read = 0;
+			for (int j = 0; j < ITER_CNT; j++) {
+				long start = System.nanoTime();
+				output.clear();
+				kryo.writeObject(output, doubles);
+				kryo.writeObject(output, floats);
+				write += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				input.setBuffer(output.getBuffer(), 0, output.position());
+				double[] doubles2 = kryo.readObject(input, double[].class);
+				float[] floats2 = kryo.readObject(input, float[].class);
+				read += System.nanoTime() - start;
+
+				assertEquals(doubles, doubles2);
+				assertEquals(floats, floats2);
+			}
+			bestWrite = Math.min(bestWrite, write);
+			bestRead = Math.min(bestRead, read);
+		}
+
+		if (outputResults) {
+			System.out.format("\n>>> %s double[] and float[] size: %,d bytes\n", name, output.position());
+			System.out.format(">>> %s double[] and float[] write (best time): %,d ms\n", name, TimeUnit.NANOSECONDS.toMillis(bestWrite));
+			System.out.format(">>> %s double[] and float[] read (best time): %,d ms\n\n", name, TimeUnit.NANOSECONDS.toMillis(bestRead));
+		}
+	}
+}
@@ -23,6 +23,8 @@ import com.esotericsoftware.kryo.KryoTestCase;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -101,6 +103,19 @@ public class ExternalizableSerializerTest extends KryoTestCase {
 		  assertEquals(result.get(1), test2);
 	 }
 
+	 public void testConstructorCalled () {
+		  kryo.setInstantiatorStrategy(new StdInstantiatorStrategy());
+		  kryo.register(InitializedClass.class, new ExternalizableSerializer());
+		  InitializedClass test = new InitializedClass();
+		  test.list.add("fubar");
+
+		  Output output = new Output(1024);
+		  kryo.writeObject(output, test);
+		  InitializedClass result = kryo.readObject(new Input(output.toBytes()), InitializedClass.class);
+		  // The field initializer ran before readExternal, even though the strategy skips constructors.
+		  assertEquals(test.list, result.list);
+	 }
+
 	 public static class TestClass implements Externalizable {
 		  String stringField;
 		  int intField;
@@ -140,6 +155,21 @@ public class ExternalizableSerializerTest extends KryoTestCase {
 		  }
 	 }
 
+	 public static class InitializedClass implements Externalizable {
+		  final List<String> list = new ArrayList<String>();
+
+		  public void writeExternal (ObjectOutput out) throws IOException {
+				out.writeInt(list.size());
+				for (String value : list)
+					 out.writeUTF(value);
+		  }
+
+		  public void readExternal (ObjectInput in) throws IOException, ClassNotFoundException {
+				for (int i = 0, n = in.readInt(); i < n; i++)
+					 list.add(in.readUTF());
+		  }
+	 }
+
 	 public static class AnotherTestClass implements Externalizable {
 		  private Date dateField;
 		  private long longField;